@@ -0,0 +1,38 @@
+package transport;
+
+import java.io.IOException;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks like the standard JMH launcher, accepting the same command line, but always with the GC
+ * profiler enabled so that every result includes the allocation rate per operation.
+ */
+public class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+        throw new AssertionError("instantiating utility class");
+    }
+
+    public static void main(String[] argv) throws CommandLineOptionException, RunnerException, IOException {
+        CommandLineOptions cmd = new CommandLineOptions(argv);
+        if (cmd.shouldHelp()) {
+            cmd.showHelp();
+            return;
+        }
+
+        Options options = new OptionsBuilder().parent(cmd).addProfiler(GCProfiler.class).build();
+        Runner runner = new Runner(options);
+        if (cmd.shouldList()) {
+            runner.list();
+        } else {
+            runner.run();
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+package transport;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures computing and verifying the checksum of a full-size data packet with each checksum algorithm, straight
+ * from the payload bytes, and computing the original checksum from a string.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChecksumBenchmark {
+
+    @Param({"sum", "internet", "crc32c", "adler32"})
+    private String type;
+
+    private ChecksumAlgorithm algorithm;
+    private String payload;
+    private Packet packet;
+
+    @Setup
+    public void setup() {
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < NetworkSimulator.MAXDATASIZE; i++) {
+            data.append((char) ('a' + i % 26));
+        }
+        payload = data.toString();
+        algorithm = ChecksumAlgorithm.create(type);
+        packet = new Packet(42, 0, 0, payload);
+        packet.setChecksum(algorithm.compute(42, 0, 0, packet.getPayloadBytes(), packet.getPayloadLength()));
+    }
+
+    @Benchmark
+    public int compute() {
+        return algorithm.compute(42, 0, 0, packet.getPayloadBytes(), packet.getPayloadLength());
+    }
+
+    @Benchmark
+    public boolean corrupt() {
+        return algorithm.corrupt(packet);
+    }
+
+    @Benchmark
+    public int computeString() {
+        return Checksum.compute(42, 0, payload);
+    }
+
+}
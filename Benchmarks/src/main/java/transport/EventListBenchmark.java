@@ -0,0 +1,61 @@
+package transport;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the event list implementations with the classic "hold" model: remove the soonest event and schedule it
+ * again a little later, so the number of pending events stays constant. The delays are drawn like the network delays
+ * in {@link NetworkHost}, and the event's index in the {@link EventStore} is freed and reused as the simulator does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventListBenchmark {
+
+    @Param({"heap", "calendar"})
+    private String type;
+
+    @Param({"64", "4096", "262144"})
+    private int size;
+
+    private EventStore store;
+    private EventList list;
+    private Random rand;
+
+    @Setup
+    public void setup() {
+        store = new EventStore(new PacketPool());
+        list = EventList.create(type, store);
+        rand = new Random(1);
+        for (int i = 0; i < size; i++) {
+            list.add(store.add(rand.nextDouble() * size, EventType.FROMNETWORK, NetworkSimulator.B,
+                    EventStore.NO_PACKET));
+        }
+    }
+
+    @Benchmark
+    public int hold() {
+        int e = list.removeNext();
+        double time = store.getTime(e) + 1.0 + Math.abs(5.0 * rand.nextGaussian() + 9.0);
+        store.free(e);
+        e = store.add(time, EventType.FROMNETWORK, NetworkSimulator.B, EventStore.NO_PACKET);
+        list.add(e);
+        return e;
+    }
+
+}
@@ -0,0 +1,80 @@
+package transport;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the Go-Back-N sender filling its window with application messages and then sliding the window along when
+ * a cumulative acknowledgement for all of them arrives, advertising room for another window. The network is lossless,
+ * and at the end of each operation the sender's timer is stopped and the events scheduled are taken off the event
+ * list, returning the packets sent to the pool.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SenderBenchmark {
+
+    @Param({"8", "64", "512"})
+    private int window;
+
+    private NetworkSimulator simulator;
+    private Sender sender;
+    private Message message;
+    private int nextSeqNum;
+
+    @Setup
+    public void setup() {
+        simulator = new NetworkSimulator();
+        simulator.setTracer(new PrintStreamTracer(System.out, TraceLevel.OFF));
+        simulator.setOption("window", Integer.toString(window));
+        simulator.initSimulator(1, 0.0, 0.0, 10.0, 1);
+
+        sender = new Sender(NetworkSimulator.A, simulator);
+        sender.init();
+        message = new Message("abcdefghijklmnopqrst");
+        nextSeqNum = 1;
+    }
+
+    @Benchmark
+    public int fillAndSlide() {
+        for (int i = 0; i < window; i++) {
+            sender.output(message);
+        }
+        nextSeqNum += window;
+
+        int ack = nextSeqNum - 1;
+        Packet packet = new Packet(0, ack, simulator.getChecksum().compute(0, ack, window));
+        packet.setWindow(window);
+        sender.input(packet);
+
+        //the acknowledgement stops the timer, but stop it through the host as well, so that the host never refers to
+        // a timer event freed below
+        sender.stopTimer();
+
+        EventStore events = simulator.getEvents();
+        int count = 0;
+        int sent;
+        while ((sent = simulator.getEventList().removeNext()) >= 0) {
+            if (events.getPacket(sent) != null) {
+                simulator.getPacketPool().release(events.getPacket(sent));
+            }
+            events.free(sent);
+            count++;
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,50 @@
+package transport;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures complete, untraced simulation runs of the Go-Back-N protocol for several run sizes, window sizes and loss
+ * rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class SimulationBenchmark {
+
+    @Param({"1000", "10000"})
+    private int messages;
+
+    @Param({"8", "32"})
+    private int window;
+
+    @Param({"0.0", "0.1"})
+    private double loss;
+
+    @Param({"heap", "calendar"})
+    private String eventList;
+
+    @Benchmark
+    public Metrics run() {
+        NetworkSimulator simulator = new NetworkSimulator();
+        simulator.setTracer(new PrintStreamTracer(System.out, TraceLevel.OFF));
+        simulator.setEventListType(eventList);
+        simulator.setOption("window", Integer.toString(window));
+        simulator.initSimulator(messages, loss, 0.0, 10.0, 1);
+        simulator.runSimulator();
+        return simulator.getMetrics();
+    }
+
+}
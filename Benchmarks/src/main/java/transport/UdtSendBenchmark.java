@@ -0,0 +1,76 @@
+package transport;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures sending one packet through the simulated network with {@link NetworkHost#udtSend(Packet)}, including the
+ * loss and corruption decisions and scheduling the arrival. The scheduled arrival is taken off the event list again
+ * straight away, so the list does not grow, and its packet is returned to the pool as if it had been received.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UdtSendBenchmark {
+
+    @Param({"0.0", "0.2"})
+    private double loss;
+
+    @Param({"0.0", "0.2"})
+    private double corrupt;
+
+    private NetworkSimulator simulator;
+    private SendingHost host;
+    private Packet packet;
+
+    @Setup
+    public void setup() {
+        simulator = new NetworkSimulator();
+        simulator.setTracer(new PrintStreamTracer(System.out, TraceLevel.OFF));
+        simulator.initSimulator(1, loss, corrupt, 10.0, 1);
+
+        host = new SendingHost(simulator);
+        String payload = "abcdefghijklmnopqrst";
+        packet = new Packet(1, 0, Checksum.compute(1, 0, payload), payload);
+    }
+
+    @Benchmark
+    public int send() {
+        host.send(packet);
+        int arrival = simulator.getEventList().removeNext();
+        if (arrival >= 0) {
+            simulator.getPacketPool().release(simulator.getEvents().getPacket(arrival));
+            simulator.getEvents().free(arrival);
+        }
+        return arrival;
+    }
+
+    /**
+     * A host which does nothing but expose {@link NetworkHost#udtSend(Packet)}.
+     */
+    private static final class SendingHost extends NetworkHost {
+
+        private SendingHost(NetworkSimulator simulator) {
+            super(NetworkSimulator.A, simulator);
+        }
+
+        private void send(Packet p) {
+            udtSend(p);
+        }
+
+    }
+
+}
@@ -0,0 +1,85 @@
+package transport;
+
+/**
+ * A retransmission timeout estimated from measured round trip times as in TCP (Jacobson, 1988; RFC 6298). The timeout
+ * is the smoothed round trip time plus four times its mean deviation, so it follows both the delay of the channel and
+ * how much that delay varies as packets queue. Each timeout doubles the timeout, and following Karn's algorithm the
+ * backed off timeout is kept until a packet sent only once is acknowledged: the acknowledgement of a retransmitted
+ * packet could be for either copy, so it neither gives a sample nor undoes the backing off.
+ */
+public class AdaptiveTimeout implements RetransmissionTimeout {
+
+    /**
+     * The gain of the smoothed round trip time.
+     */
+    private static final double ALPHA = 1.0 / 8.0;
+
+    /**
+     * The gain of the round trip time deviation.
+     */
+    private static final double BETA = 1.0 / 4.0;
+
+    /**
+     * The number of deviations allowed above the smoothed round trip time.
+     */
+    private static final double K = 4.0;
+
+    /**
+     * The smallest timeout, which stops a run of near-identical samples shrinking the timeout to nothing.
+     */
+    private static final double MIN_TIMEOUT = 1.0;
+
+    /**
+     * The largest timeout, backed off or not, as a multiple of the initial timeout.
+     */
+    private static final double MAX_FACTOR = 60.0;
+
+    private final double maxTimeout;
+
+    // the timeout estimated from the samples, or the initial timeout before the first one
+    private double estimate;
+
+    // the smoothed round trip time and its deviation - both zero until the first sample
+    private double srtt;
+    private double rttvar;
+    private boolean sampled;
+
+    // the current timeout, including any backing off since the last sample
+    private double timeout;
+
+    public AdaptiveTimeout(double initial) {
+        this.maxTimeout = initial * MAX_FACTOR;
+        this.estimate = initial;
+        this.timeout = initial;
+        this.sampled = false;
+    }
+
+    @Override
+    public double get() {
+        return timeout;
+    }
+
+    @Override
+    public void sample(double rtt) {
+        if (!sampled) {
+            srtt = rtt;
+            rttvar = rtt / 2.0;
+            sampled = true;
+        } else {
+            rttvar = (1.0 - BETA) * rttvar + BETA * Math.abs(srtt - rtt);
+            srtt = (1.0 - ALPHA) * srtt + ALPHA * rtt;
+        }
+        estimate = Math.min(Math.max(srtt + K * rttvar, MIN_TIMEOUT), maxTimeout);
+        timeout = estimate;
+    }
+
+    @Override
+    public void retransmissionAcked(double elapsed) {
+    }
+
+    @Override
+    public void backoff() {
+        timeout = Math.min(timeout * 2.0, maxTimeout);
+    }
+
+}
@@ -0,0 +1,52 @@
+package transport;
+
+/**
+ * The Adler-32 checksum used by zlib, over the sequence number, acknowledgement number, window, payload and selective
+ * acknowledgement edges, with the numbers taken as big-endian bytes. It keeps a running sum of the bytes and a sum of
+ * those sums, both modulo 65521, so unlike {@link SumChecksum} it depends on the order of the bytes.
+ * <p>
+ * The sums are kept in longs and only reduced at the end, which is safe for far more bytes than a packet holds.
+ */
+public class Adler32Checksum implements ChecksumAlgorithm {
+
+    /**
+     * The largest prime below 2^16.
+     */
+    private static final int MODULUS = 65521;
+
+    @Override
+    public int compute(int seq, int ack, int window, byte[] data, int length, int[] sack) {
+        long a = 1;
+        long b = 0;
+
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            a += (seq >>> shift) & 0xFF;
+            b += a;
+        }
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            a += (ack >>> shift) & 0xFF;
+            b += a;
+        }
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            a += (window >>> shift) & 0xFF;
+            b += a;
+        }
+
+        for (int i = 0; i < length; i++) {
+            a += data[i] & 0xFF;
+            b += a;
+        }
+
+        if (sack != null) {
+            for (int edge : sack) {
+                for (int shift = 24; shift >= 0; shift -= 8) {
+                    a += (edge >>> shift) & 0xFF;
+                    b += a;
+                }
+            }
+        }
+
+        return (int) ((b % MODULUS) << 16 | (a % MODULUS));
+    }
+
+}
@@ -0,0 +1,46 @@
+package transport;
+
+/**
+ * Additive-increase, multiplicative-decrease congestion control without slow start. The window grows by a fixed
+ * amount per round trip and is multiplied down on a timeout, so with increase 1 and decrease 0.5 it follows the
+ * sawtooth of TCP congestion avoidance, and other values give gentler or more aggressive variants.
+ */
+public class AimdControl implements CongestionControl {
+
+    private final int maxWindow;
+    private final double increase;
+    private final double decrease;
+
+    private double window;
+
+    public AimdControl(int maxWindow, double increase, double decrease) {
+        this.maxWindow = maxWindow;
+        this.increase = increase;
+        this.decrease = decrease;
+        this.window = 1.0;
+    }
+
+    @Override
+    public double getWindow() {
+        return window;
+    }
+
+    @Override
+    public void acked(int packets) {
+        for (int i = 0; i < packets; i++) {
+            window += increase / window;
+        }
+        window = Math.min(window, maxWindow);
+    }
+
+    @Override
+    public void timeout() {
+        window = Math.max(window * decrease, 1.0);
+    }
+
+    @Override
+    public void fastRetransmit() {
+        timeout();
+    }
+
+}
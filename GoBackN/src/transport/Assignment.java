@@ -1,6 +1,8 @@
 package transport;
 
 import java.io.*;
+import java.nio.file.Paths;
+import java.util.Locale;
 
 public class Assignment {
 
@@ -56,13 +58,62 @@ public class Assignment {
         buffer = stdIn.readLine();
         seed = Long.valueOf(buffer);
 
-        // Instantiate the single instance of the NetworkSimulator
-        simulator = NetworkSimulator.getInstance();
+        // Instantiate the NetworkSimulator
+        simulator = new NetworkSimulator();
+
+        // Select the event list implementation, e.g. -Dtransport.eventlist=calendar for very long runs
+        simulator.setEventListType(System.getProperty("transport.eventlist", "heap"));
+
+        // Pass any other -Dtransport.<name>=<value> settings to the hosts as options, e.g. -Dtransport.window=16
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("transport.")) {
+                simulator.setOption(name.substring("transport.".length()), System.getProperty(name));
+            }
+        }
 
         // Initialise the simulator
         simulator.initSimulator(nMsgSim, loss, corrupt, delay, seed);
 
+        // Select how much is traced, e.g. -Dtransport.trace=summary, and optionally write it to -Dtransport.tracefile
+        TraceLevel level = TraceLevel.valueOf(System.getProperty("transport.trace", "packet").toUpperCase(Locale.ROOT));
+        String traceFile = System.getProperty("transport.tracefile");
+        if (traceFile != null) {
+            simulator.setTracer(new AsyncTracer(new FileWriter(traceFile), level));
+        } else {
+            simulator.setTracer(new PrintStreamTracer(System.out, level));
+        }
+
+        // Optionally record every event in a binary trace file, e.g. -Dtransport.recordfile=trace.bin
+        String recordFile = System.getProperty("transport.recordfile");
+        if (recordFile != null) {
+            simulator.setRecorder(new TraceRecorder(Paths.get(recordFile)));
+        }
+
         // Run the simulator
         simulator.runSimulator();
+        simulator.getTracer().close();
+        if (simulator.getRecorder() != null) {
+            simulator.getRecorder().close();
+        }
+
+        // Optionally write the run's metrics, e.g. -Dtransport.metrics=run.json or -Dtransport.metrics=run.csv
+        String metricsFile = System.getProperty("transport.metrics");
+        if (metricsFile != null) {
+            try (Writer out = new FileWriter(metricsFile)) {
+                if (metricsFile.endsWith(".csv")) {
+                    simulator.getMetrics().writeCsv(out);
+                } else {
+                    simulator.getMetrics().writeJson(out);
+                }
+            }
+        }
+
+        // Optionally write the sender's congestion window over time, e.g. -Dtransport.windowlog=cwnd.csv
+        String windowFile = System.getProperty("transport.windowlog");
+        if (windowFile != null) {
+            try (Writer out = new FileWriter(windowFile)) {
+                simulator.getMetrics().writeWindowCsv(out);
+            }
+        }
     }
 }
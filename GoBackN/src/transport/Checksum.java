@@ -1,7 +1,9 @@
 package transport;
 
 /**
- * A utility class for computing and verifying a packet's checksum.
+ * A utility class for computing and verifying a packet's checksum with the original algorithm, a plain sum. The hosts
+ * use the algorithm chosen for the simulation instead, from {@link NetworkSimulator#getChecksum()}; this is
+ * {@link SumChecksum}, the default.
  *
  * @author 153728
  */
@@ -33,13 +35,75 @@ public class Checksum {
      * @return the checksum of the packet
      */
     public static int compute(int seq, int ack, String payload) {
+        return Checksum.compute(seq, ack, payload, null);
+    }
+
+    /**
+     * Calculates the checksum for a given sequence number, acknowledgement number, payload and selective
+     * acknowledgement blocks.
+     *
+     * @param seq the sequence number of the packet
+     * @param ack the acknowledgement number of the packet
+     * @param payload the payload of the packet
+     * @param sack the selective acknowledgement blocks of the packet, or null if it has none
+     * @return the checksum of the packet
+     */
+    public static int compute(int seq, int ack, String payload, int[] sack) {
         int total = seq + ack;
 
         if (payload != null) {
-            //sum over integer value of characters in payload
-            char[] chars = payload.toCharArray();
-            for (char c : chars) {
-                total += c;
+            //sum over integer value of characters in payload, without copying them out of the string
+            for (int i = 0; i < payload.length(); i++) {
+                total += payload.charAt(i);
+            }
+        }
+
+        if (sack != null) {
+            for (int edge : sack) {
+                total += edge;
+            }
+        }
+
+        return ~total;
+    }
+
+    /**
+     * Calculates the checksum for a given sequence number, acknowledgement number, window and payload held as bytes,
+     * one per character. With a window of zero, this is the same as the checksum of the payload as a string.
+     *
+     * @param seq the sequence number of the packet
+     * @param ack the acknowledgement number of the packet
+     * @param window the receive window advertised by the packet
+     * @param data the payload of the packet
+     * @param length the number of bytes of the payload in use
+     * @return the checksum of the packet
+     */
+    public static int compute(int seq, int ack, int window, byte[] data, int length) {
+        return Checksum.compute(seq, ack, window, data, length, null);
+    }
+
+    /**
+     * Calculates the checksum for a given sequence number, acknowledgement number, window, payload held as bytes and
+     * selective acknowledgement blocks.
+     *
+     * @param seq the sequence number of the packet
+     * @param ack the acknowledgement number of the packet
+     * @param window the receive window advertised by the packet
+     * @param data the payload of the packet
+     * @param length the number of bytes of the payload in use
+     * @param sack the selective acknowledgement blocks of the packet, or null if it has none
+     * @return the checksum of the packet
+     */
+    public static int compute(int seq, int ack, int window, byte[] data, int length, int[] sack) {
+        int total = seq + ack + window;
+
+        for (int i = 0; i < length; i++) {
+            total += data[i] & 0xFF;
+        }
+
+        if (sack != null) {
+            for (int edge : sack) {
+                total += edge;
             }
         }
 
@@ -53,7 +117,8 @@ public class Checksum {
      * @return true if the packet is corrupt, otherwise false
      */
     public static boolean corrupt(Packet packet) {
-        return packet.getChecksum() != Checksum.compute(packet.getSeqnum(), packet.getAcknum(), packet.getPayload());
+        return packet.getChecksum() != Checksum.compute(packet.getSeqnum(), packet.getAcknum(), packet.getWindow(),
+                packet.getPayloadBytes(), packet.getPayloadLength(), packet.getSack());
     }
 
 }
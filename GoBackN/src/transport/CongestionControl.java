@@ -0,0 +1,56 @@
+package transport;
+
+/**
+ * Decides how many packets a sender may have in transit, growing the window while packets are acknowledged and
+ * shrinking it when a timeout suggests the network is overloaded.
+ */
+public interface CongestionControl {
+
+    /**
+     * @return the current congestion window in packets - may be fractional, but never less than one
+     */
+    double getWindow();
+
+    /**
+     * Records that new packets have been acknowledged.
+     *
+     * @param packets the number of packets newly acknowledged
+     */
+    void acked(int packets);
+
+    /**
+     * Records that the sender's timer has expired.
+     */
+    void timeout();
+
+    /**
+     * Records that the sender has sent packets again because of duplicate acknowledgements. A few acknowledgements are
+     * still getting through, so this is a milder signal than a timeout.
+     */
+    void fastRetransmit();
+
+    /**
+     * Creates a congestion control algorithm of the given type.
+     *
+     * @param type "none" for a {@link FixedWindow}, "reno" for a {@link RenoControl} or "aimd" for an
+     *             {@link AimdControl}
+     * @param maxWindow the largest window allowed, and the window used by "none"
+     * @param increase the number of packets added to the window for each window of packets acknowledged
+     * @param decrease the factor the window (or the slow start threshold, for "reno") is multiplied by on a timeout
+     * @return a new congestion control algorithm
+     * @throws IllegalArgumentException if the type is not recognised
+     */
+    static CongestionControl create(String type, int maxWindow, double increase, double decrease) {
+        switch (type) {
+            case "none":
+                return new FixedWindow(maxWindow);
+            case "reno":
+                return new RenoControl(maxWindow, increase, decrease);
+            case "aimd":
+                return new AimdControl(maxWindow, increase, decrease);
+            default:
+                throw new IllegalArgumentException("unknown congestion control type: " + type);
+        }
+    }
+
+}
@@ -0,0 +1,17 @@
+package transport;
+
+/**
+ * An application which passes on a message at a constant bit rate, exactly the average time after the one before.
+ */
+public class ConstantTraffic extends GeneratedTraffic {
+
+    public ConstantTraffic(NetworkSimulator simulator) {
+        super(simulator);
+    }
+
+    @Override
+    public double nextArrival(double now) {
+        return now + getAvgMessageDelay();
+    }
+
+}
@@ -0,0 +1,187 @@
+package transport;
+
+import java.util.Arrays;
+
+/**
+ * The events scheduled in one simulation, laid out as parallel arrays of primitive fields rather than as objects. An
+ * event is identified by its index in the arrays, which is reused once the event has been executed and freed, so that
+ * scheduling an event allocates nothing once the arrays have grown to the largest number of events pending at once.
+ * An {@link EventList} orders these indices by time.
+ * <p>
+ * Besides its time, type and entity - the index of the host it is executed at, in the simulator's routing table rather
+ * than the host's entity number - each event records the order in which it was added, so that events scheduled for
+ * the same time can be executed in that order, and the index in the {@link PacketPool} of its packet, or
+ * {@link #NO_PACKET}. A store belongs to one simulator and is not thread safe.
+ */
+public class EventStore {
+
+    /**
+     * The packet index of an event without a packet.
+     */
+    public static final int NO_PACKET = -1;
+
+    /**
+     * The initial capacity of the arrays.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    private static final EventType[] TYPES = EventType.values();
+
+    // the pool the packets of FROMNETWORK events are taken from
+    private final PacketPool pool;
+
+    // the fields of each event, indexed by event
+    private double[] time;
+    private byte[] type;
+    private int[] entity;
+    private int[] packet;
+    private long[] order;
+    private boolean[] cancelled;
+
+    // the indices which are not in use, as a stack
+    private int[] free;
+    private int freeCount;
+
+    // the number of indices ever used - those from here up to the capacity have never been used
+    private int used;
+
+    // the order to give to the next event added
+    private long nextOrder;
+
+    /**
+     * Creates an empty store.
+     *
+     * @param pool the pool which the packet indices of events refer to
+     */
+    public EventStore(PacketPool pool) {
+        this.pool = pool;
+        time = new double[INITIAL_CAPACITY];
+        type = new byte[INITIAL_CAPACITY];
+        entity = new int[INITIAL_CAPACITY];
+        packet = new int[INITIAL_CAPACITY];
+        order = new long[INITIAL_CAPACITY];
+        cancelled = new boolean[INITIAL_CAPACITY];
+        free = new int[INITIAL_CAPACITY];
+        freeCount = 0;
+        used = 0;
+        nextOrder = 0;
+    }
+
+    /**
+     * Stores a new event. It still has to be added to an {@link EventList} to be executed.
+     *
+     * @param t the time the event is scheduled for
+     * @param ty the type of event
+     * @param ent the index of the host at which the event will be executed
+     * @param p the index in the pool of the packet involved, or {@link #NO_PACKET}
+     * @return the index of the event, valid until it is freed
+     */
+    public int add(double t, EventType ty, int ent, int p) {
+        int e;
+        if (freeCount > 0) {
+            e = free[--freeCount];
+        } else {
+            if (used == time.length) {
+                grow();
+            }
+            e = used++;
+        }
+
+        time[e] = t;
+        type[e] = (byte) ty.ordinal();
+        entity[e] = ent;
+        packet[e] = p;
+        order[e] = nextOrder++;
+        cancelled[e] = false;
+        return e;
+    }
+
+    /**
+     * Makes the index of an event available for reuse, once it has been removed from the event list. The packet is
+     * not returned to the pool.
+     *
+     * @param e the index of the event
+     */
+    public void free(int e) {
+        free[freeCount++] = e;
+    }
+
+    // Cancelling an event leaves it in the EventList, but the simulator discards it instead of executing it
+    void cancel(int e) {
+        cancelled[e] = true;
+    }
+
+    boolean isCancelled(int e) {
+        return cancelled[e];
+    }
+
+    public double getTime(int e) {
+        return time[e];
+    }
+
+    public EventType getType(int e) {
+        return TYPES[type[e]];
+    }
+
+    public int getEntity(int e) {
+        return entity[e];
+    }
+
+    /**
+     * @return the index in the pool of the event's packet, or {@link #NO_PACKET}
+     */
+    public int getPacketIndex(int e) {
+        return packet[e];
+    }
+
+    /**
+     * @return the event's packet, or null if it has none
+     */
+    public Packet getPacket(int e) {
+        return packet[e] == NO_PACKET ? null : pool.get(packet[e]);
+    }
+
+    /**
+     * Compares two events by scheduled time, falling back to the order in which they were added.
+     *
+     * @return true if the first event should be executed before the second
+     */
+    public boolean before(int e1, int e2) {
+        double time1 = time[e1];
+        double time2 = time[e2];
+        return time1 < time2 || (time1 == time2 && order[e1] < order[e2]);
+    }
+
+    /**
+     * @return the number of indices the store has room for without growing
+     */
+    public int capacity() {
+        return time.length;
+    }
+
+    /**
+     * Copies the fields of an event into an {@link Event}, for code which works with events as objects. The copy is
+     * not updated if the event changes.
+     *
+     * @param e the index of the event
+     * @return a new event equal to the stored one
+     */
+    public Event get(int e) {
+        return new Event(time[e], getType(e), entity[e], getPacket(e));
+    }
+
+    /**
+     * Doubles the capacity of all the arrays.
+     */
+    private void grow() {
+        int capacity = time.length * 2;
+        time = Arrays.copyOf(time, capacity);
+        type = Arrays.copyOf(type, capacity);
+        entity = Arrays.copyOf(entity, capacity);
+        packet = Arrays.copyOf(packet, capacity);
+        order = Arrays.copyOf(order, capacity);
+        cancelled = Arrays.copyOf(cancelled, capacity);
+        free = Arrays.copyOf(free, capacity);
+    }
+
+}
@@ -1,5 +1,5 @@
 package transport;
 
 public enum EventType {
-    TIMERINTERRUPT, FROMAPP, FROMNETWORK;
+    TIMERINTERRUPT, FROMAPP, FROMNETWORK, TOAPP;
 }
@@ -0,0 +1,31 @@
+package transport;
+
+/**
+ * A congestion window which never changes.
+ */
+public class FixedWindow implements CongestionControl {
+
+    private final int window;
+
+    public FixedWindow(int window) {
+        this.window = window;
+    }
+
+    @Override
+    public double getWindow() {
+        return window;
+    }
+
+    @Override
+    public void acked(int packets) {
+    }
+
+    @Override
+    public void timeout() {
+    }
+
+    @Override
+    public void fastRetransmit() {
+    }
+
+}
@@ -0,0 +1,115 @@
+package transport;
+
+import java.util.Arrays;
+
+/**
+ * An event list which keeps events in a binary min-heap keyed on the scheduled time, so that adding an event and
+ * removing the soonest event both take logarithmic time. Events scheduled for the same time are removed in the order
+ * in which they were stored, which keeps simulation runs deterministic.
+ * <p>
+ * The heap holds only the indices of the events; their times are read from the {@link EventStore}.
+ */
+public class HeapEventList implements EventList {
+
+    /**
+     * The initial capacity of the heap array.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    // the store holding the events
+    private final EventStore store;
+
+    // the heap of event indices - the soonest event is always at index 0
+    private int[] heap;
+
+    // the number of events currently in the heap
+    private int size;
+
+    public HeapEventList(EventStore store) {
+        this.store = store;
+        heap = new int[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    @Override
+    public void add(int e) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+
+        //place the new event at the bottom of the heap and move it up into position
+        heap[size] = e;
+        siftUp(size++);
+    }
+
+    @Override
+    public int removeNext() {
+        if (size == 0) {
+            return -1;
+        }
+
+        int removed = heap[0];
+
+        //move the last event to the top and let it settle down into position
+        --size;
+        heap[0] = heap[size];
+        siftDown(0);
+
+        return removed;
+    }
+
+    /**
+     * Moves the event at the given index up the heap until its parent is scheduled no later than it.
+     *
+     * @param i the index in the heap of the event to move
+     */
+    private void siftUp(int i) {
+        int e = heap[i];
+
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!store.before(e, heap[parent])) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+
+        heap[i] = e;
+    }
+
+    /**
+     * Moves the event at the given index down the heap until both of its children are scheduled no earlier than it.
+     *
+     * @param i the index in the heap of the event to move
+     */
+    private void siftDown(int i) {
+        int e = heap[i];
+        int half = size >>> 1;
+
+        while (i < half) {
+            //pick the sooner of the two children
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && store.before(heap[right], heap[child])) {
+                child = right;
+            }
+            if (!store.before(heap[child], e)) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+
+        heap[i] = e;
+    }
+
+    @Override
+    public String toString() {
+        Event[] events = new Event[size];
+        for (int i = 0; i < size; i++) {
+            events[i] = store.get(heap[i]);
+        }
+        return Arrays.toString(events);
+    }
+}
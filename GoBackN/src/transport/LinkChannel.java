@@ -0,0 +1,61 @@
+package transport;
+
+/**
+ * A link of fixed bandwidth behind a router queue of finite size. Each packet takes time to transmit in proportion to
+ * its size, one at a time, and waits in the queue while the packets before it are transmitted; once the queue is full,
+ * further packets are dropped (tail-drop) until there is room again. A packet arrives a fixed propagation delay after
+ * it has been transmitted, so queueing delay and throughput saturation appear as the load approaches the bandwidth.
+ * <p>
+ * The options are "bandwidth" in bytes per time unit (default 10), "propagation" in time units (default 5) and
+ * "queue" in packets, including the one being transmitted (default 16). Packets are also lost and corrupted on the
+ * link as on a {@link BernoulliChannel}, after they have been transmitted.
+ */
+public class LinkChannel extends NoisyChannel {
+
+    /**
+     * The size of a packet's header in bytes: the sequence number, acknowledgement number, checksum and window.
+     */
+    private static final int HEADER_SIZE = 16;
+
+    private final double bandwidth;     // bytes transmitted per time unit
+    private final double propagation;   // time from the end of a packet's transmission to its arrival
+
+    private final DropTailQueue queue;  // the packets waiting to be transmitted, leaving as they finish transmission
+
+    private double busyUntil;           // the time the link finishes transmitting the last packet queued
+
+    public LinkChannel(NetworkSimulator simulator, String direction) {
+        super(simulator, direction);
+        bandwidth = simulator.getChannelOption(direction, "bandwidth", 10.0);
+        propagation = simulator.getChannelOption(direction, "propagation", 5.0);
+        queue = new DropTailQueue((int) simulator.getChannelOption(direction, "queue", 16));
+        busyUntil = 0.0;
+    }
+
+    @Override
+    public double transmit(Packet packet, double now) {
+        // there is room once the packets which have been transmitted have left the queue
+        if (!queue.hasRoom(now)) {
+            return DROPPED;
+        }
+
+        // transmit after the packets already queued
+        busyUntil = Math.max(busyUntil, now) + size(packet) / bandwidth;
+        getSimulator().getMetrics().queued(queue.add(busyUntil));
+
+        if (lose(getLossProb())) {
+            return LOST;
+        }
+        corrupt(packet);
+        return busyUntil + propagation;
+    }
+
+    /**
+     * @return the number of bytes a packet takes up on the link
+     */
+    private static int size(Packet packet) {
+        int[] sack = packet.getSack();
+        return HEADER_SIZE + packet.getPayloadLength() + (sack == null ? 0 : 4 * sack.length);
+    }
+
+}
@@ -1,27 +1,58 @@
 package transport;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * The unit of data passed by the application layer to the transport protocol (the layer students implement)
+ * <p>
+ * Like a {@link Packet}, the data is held in a fixed-size byte array, one byte per character. The simulator fills in
+ * the same message for every message from the application layer, so a host must copy the data it keeps.
  */
 public class Message {
 
-    private String data; // application level data
+    private final byte[] data = new byte[NetworkSimulator.MAXDATASIZE];    // application level data
+    private int length;                                                     // the number of bytes of data in use
 
     public Message(String inputData) {
-        data = inputData;
+        setData(inputData);
+    }
+
+    // An empty message, to be filled in by the simulator
+    Message() {
     }
 
+    // Decodes the data into a new String; getBytes() reads it without allocating
     public String getData() {
-        return data;
+        return new String(data, 0, length, StandardCharsets.ISO_8859_1);
     }
 
+    // Stores data of at most MAXDATASIZE characters, each of which must fit in a byte
     public void setData(String data) {
-        this.data = data;
+        if (data.length() > this.data.length) {
+            throw new IllegalArgumentException("message longer than " + this.data.length + " characters");
+        }
+        for (int i = 0; i < data.length(); i++) {
+            this.data[i] = (byte) data.charAt(i);
+        }
+        length = data.length();
+    }
+
+    // The data itself, of which the first getLength() bytes are in use
+    public byte[] getBytes() {
+        return data;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public void setLength(int length) {
+        this.length = length;
     }
 
     @Override
     public String toString() {
-        return data;
+        return getData();
     }
 
 }
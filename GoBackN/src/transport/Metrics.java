@@ -0,0 +1,556 @@
+package transport;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counters and histograms describing one simulation run. The simulator and the hosts update these as the run goes
+ * along; the update methods only touch primitive fields, so they do not allocate. At the end of the run the metrics can
+ * be written as JSON or CSV.
+ * <p>
+ * Delivery latency is measured from the time a message is accepted by the sending host to the time it is delivered to
+ * the receiving application. The protocols deliver messages in the order they were accepted, so the acceptance times
+ * are kept in a queue for each sending host and matched up with the deliveries of its messages in order. The other
+ * metrics are totals over all flows, in both directions, apart from the fairness index, which compares the messages
+ * delivered by each flow.
+ */
+public class Metrics {
+
+    /**
+     * The percentiles exported for each histogram.
+     */
+    private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9};
+
+    private long messagesGenerated;     // messages created by the application layer at the sender
+    private long messagesDropped;       // messages the sender would not accept, which are never sent
+    private long messagesRefused;       // times the sender could not accept a message yet, which was offered again later
+    private long messagesDelivered;     // messages delivered to the application layer at the receiver
+
+    private long packetsSent;           // packets passed to the network by either host
+    private long packetsLost;           // packets lost by the network
+    private long packetsCorrupted;      // packets corrupted by the network
+    private long corruptionsUndetected; // corrupted packets received whose checksum was still correct
+    private long packetsReceived;       // packets delivered by the network to either host
+    private long queueDrops;            // packets dropped by the network because a link's queue was full
+    private long packetsReordered;      // packets held back by the network, so that later packets could overtake them
+    private long packetsDuplicated;     // packets the network delivered a second copy of
+    private int queuePeak;              // the most packets queued for a link at once
+
+    private long timeouts;              // timer interrupts executed
+    private long retransmissions;       // packets sent again by the sender
+    private long duplicateAcks;         // acknowledgements which did not acknowledge anything new
+    private long fastRetransmits;       // retransmissions triggered by duplicate acknowledgements, not the timer
+    private long windowProbes;          // packets sent while the receiver advertised no room, to learn when it has room
+    private long acksPiggybacked;       // acknowledgements sent in data packets rather than on their own
+
+    private final Histogram latency;    // time from a message being accepted to it being delivered
+    private final Histogram gap;        // time between consecutive deliveries
+    private final Histogram stall;      // time from sending the oldest unacknowledged packet to sending it again
+
+    // acceptance times of messages which have not been delivered yet, as a growable ring for each sending host
+    private final double[][] accepted;
+    private final int[] head;
+    private final int[] pending;
+
+    private final long[] flowDelivered; // messages delivered to the application layer at each flow's receiver
+
+    private int bufferPeak;             // the most packets held in the sender's buffer at once
+    private int bufferCapacity;         // the most packet slots the sender's buffer had allocated at once
+    private double blockedTime;         // total time the application layer was suspended by the sender
+
+    // the sender's congestion window each time it changed, as parallel growable arrays
+    private double[] windowTimes;
+    private double[] windowSizes;
+    private int windowChanges;
+
+    private double lastDelivery;
+    private double endTime;
+
+    public Metrics() {
+        this(1);
+    }
+
+    /**
+     * @param flows the number of sender and receiver pairs in the simulation
+     */
+    public Metrics(int flows) {
+        latency = new Histogram();
+        gap = new Histogram();
+        stall = new Histogram();
+        accepted = new double[2 * flows][];
+        for (int host = 0; host < 2 * flows; host++) {
+            accepted[host] = new double[flows == 1 ? 64 : 8];
+        }
+        head = new int[2 * flows];
+        pending = new int[2 * flows];
+        flowDelivered = new long[flows];
+        windowTimes = new double[64];
+        windowSizes = new double[64];
+        windowChanges = 0;
+        lastDelivery = Double.NaN;
+    }
+
+    void messageGenerated() {
+        messagesGenerated++;
+    }
+
+    // The host is the index of the sending host, see NetworkSimulator
+    void messageAccepted(int host, double time) {
+        double[] ring = accepted[host];
+        if (pending[host] == ring.length) {
+            //unroll the ring into a larger array
+            double[] larger = new double[ring.length * 2];
+            for (int i = 0; i < pending[host]; i++) {
+                larger[i] = ring[(head[host] + i) % ring.length];
+            }
+            ring = larger;
+            accepted[host] = larger;
+            head[host] = 0;
+        }
+        ring[(head[host] + pending[host]) % ring.length] = time;
+        pending[host]++;
+    }
+
+    void messageDropped() {
+        messagesDropped++;
+    }
+
+    void messageRefused() {
+        messagesRefused++;
+    }
+
+    // The host is the index of the host which sent the message
+    void messageDelivered(int host, double time) {
+        messagesDelivered++;
+        flowDelivered[host / 2]++;
+
+        if (pending[host] > 0) {
+            double[] ring = accepted[host];
+            latency.record(time - ring[head[host]]);
+            head[host] = (head[host] + 1) % ring.length;
+            pending[host]--;
+        }
+        if (!Double.isNaN(lastDelivery)) {
+            gap.record(time - lastDelivery);
+        }
+        lastDelivery = time;
+    }
+
+    void ackPiggybacked() {
+        acksPiggybacked++;
+    }
+
+    void packetSent() {
+        packetsSent++;
+    }
+
+    void packetLost() {
+        packetsLost++;
+    }
+
+    void packetCorrupted() {
+        packetsCorrupted++;
+    }
+
+    void corruptionUndetected() {
+        corruptionsUndetected++;
+    }
+
+    void queueDrop() {
+        queueDrops++;
+    }
+
+    void packetReordered() {
+        packetsReordered++;
+    }
+
+    void packetDuplicated() {
+        packetsDuplicated++;
+    }
+
+    void queued(int packets) {
+        queuePeak = Math.max(queuePeak, packets);
+    }
+
+    void packetReceived() {
+        packetsReceived++;
+    }
+
+    void timeout() {
+        timeouts++;
+    }
+
+    /**
+     * Records that the sender has sent a packet again. Called by the protocol implementations.
+     */
+    public void retransmission() {
+        retransmissions++;
+    }
+
+    /**
+     * Records that the sender has received an acknowledgement which acknowledges nothing new. Called by the protocol
+     * implementations.
+     */
+    public void duplicateAck() {
+        duplicateAcks++;
+    }
+
+    /**
+     * Records that the sender has sent packets again because of duplicate acknowledgements, before its timer expired.
+     * Called by the protocol implementations.
+     */
+    public void fastRetransmit() {
+        fastRetransmits++;
+    }
+
+    /**
+     * Records that the sender has sent a packet although the receiver's advertised window was closed, because the
+     * acknowledgement opening it again may have been lost. Called by protocol implementations with flow control.
+     */
+    public void windowProbe() {
+        windowProbes++;
+    }
+
+    /**
+     * Records how long the oldest unacknowledged packet was outstanding before the sender gave up on it and sent it
+     * again, either on a timeout or a fast retransmit. Called by the protocol implementations.
+     *
+     * @param duration the time since the packet was last sent
+     */
+    public void stalled(double duration) {
+        stall.record(duration);
+    }
+
+    /**
+     * Records the sender's congestion window after it changes. Called by protocol implementations with a congestion
+     * window.
+     *
+     * @param time the current simulation time
+     * @param size the new window, in packets
+     */
+    public void window(double time, double size) {
+        if (windowChanges == windowTimes.length) {
+            windowTimes = Arrays.copyOf(windowTimes, windowChanges * 2);
+            windowSizes = Arrays.copyOf(windowSizes, windowChanges * 2);
+        }
+        windowTimes[windowChanges] = time;
+        windowSizes[windowChanges] = size;
+        windowChanges++;
+    }
+
+    /**
+     * Records the occupancy of the sender's buffer after a message is added. Called by protocol implementations with a
+     * send buffer.
+     *
+     * @param packets the number of packets held
+     * @param capacity the number of packet slots allocated
+     */
+    public void buffered(int packets, int capacity) {
+        bufferPeak = Math.max(bufferPeak, packets);
+        bufferCapacity = Math.max(bufferCapacity, capacity);
+    }
+
+    void blocked(double duration) {
+        blockedTime += duration;
+    }
+
+    void finished(double time) {
+        endTime = time;
+    }
+
+    public long getMessagesGenerated() {
+        return messagesGenerated;
+    }
+
+    public long getMessagesDropped() {
+        return messagesDropped;
+    }
+
+    public long getMessagesRefused() {
+        return messagesRefused;
+    }
+
+    public long getMessagesDelivered() {
+        return messagesDelivered;
+    }
+
+    public long getPacketsSent() {
+        return packetsSent;
+    }
+
+    public long getPacketsLost() {
+        return packetsLost;
+    }
+
+    public long getPacketsCorrupted() {
+        return packetsCorrupted;
+    }
+
+    public long getCorruptionsUndetected() {
+        return corruptionsUndetected;
+    }
+
+    /**
+     * @return the fraction of corrupted packets received whose checksum showed the corruption, or 1 if none were
+     */
+    public double getDetectionRate() {
+        return packetsCorrupted > 0 ? 1.0 - (double) corruptionsUndetected / packetsCorrupted : 1.0;
+    }
+
+    /**
+     * @return the messages delivered at the receiver of one flow
+     */
+    public long getMessagesDelivered(int flow) {
+        return flowDelivered[flow];
+    }
+
+    /**
+     * @return Jain's fairness index of the messages delivered by each flow, from 1/flows when one flow had all of them
+     *         to 1 when they all had the same, or 1 if nothing was delivered
+     */
+    public double getFairness() {
+        double sum = 0.0;
+        double squares = 0.0;
+        for (long delivered : flowDelivered) {
+            sum += delivered;
+            squares += (double) delivered * delivered;
+        }
+        return squares > 0.0 ? sum * sum / (flowDelivered.length * squares) : 1.0;
+    }
+
+    public long getPacketsReceived() {
+        return packetsReceived;
+    }
+
+    public long getQueueDrops() {
+        return queueDrops;
+    }
+
+    public int getQueuePeak() {
+        return queuePeak;
+    }
+
+    public long getPacketsReordered() {
+        return packetsReordered;
+    }
+
+    public long getPacketsDuplicated() {
+        return packetsDuplicated;
+    }
+
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    public long getRetransmissions() {
+        return retransmissions;
+    }
+
+    public long getDuplicateAcks() {
+        return duplicateAcks;
+    }
+
+    public long getFastRetransmits() {
+        return fastRetransmits;
+    }
+
+    public long getWindowProbes() {
+        return windowProbes;
+    }
+
+    public long getAcksPiggybacked() {
+        return acksPiggybacked;
+    }
+
+    /**
+     * @return messages delivered per packet sent, at most 1 with acknowledgements piggybacked on data and at most 1/2
+     *         with every message acknowledged on its own
+     */
+    public double getEfficiency() {
+        return packetsSent > 0 ? (double) messagesDelivered / packetsSent : 0.0;
+    }
+
+    public int getBufferPeak() {
+        return bufferPeak;
+    }
+
+    public int getBufferCapacity() {
+        return bufferCapacity;
+    }
+
+    public double getBlockedTime() {
+        return blockedTime;
+    }
+
+    public Histogram getLatency() {
+        return latency;
+    }
+
+    public Histogram getGap() {
+        return gap;
+    }
+
+    public Histogram getStall() {
+        return stall;
+    }
+
+    /**
+     * @return the number of congestion window changes recorded
+     */
+    public int getWindowChanges() {
+        return windowChanges;
+    }
+
+    public double getEndTime() {
+        return endTime;
+    }
+
+    /**
+     * @return messages delivered per unit of simulated time
+     */
+    public double getGoodput() {
+        return endTime > 0.0 ? messagesDelivered / endTime : 0.0;
+    }
+
+    /**
+     * Lists every metric as a single value, including a fixed set of statistics for each histogram.
+     *
+     * @return the metrics by name, in a fixed order
+     */
+    public Map<String, Number> toMap() {
+        Map<String, Number> map = new LinkedHashMap<>();
+        map.put("time", endTime);
+        map.put("messagesGenerated", messagesGenerated);
+        map.put("messagesDropped", messagesDropped);
+        map.put("messagesRefused", messagesRefused);
+        map.put("messagesDelivered", messagesDelivered);
+        map.put("goodput", getGoodput());
+        map.put("fairness", getFairness());
+        map.put("packetsSent", packetsSent);
+        map.put("packetsLost", packetsLost);
+        map.put("packetsCorrupted", packetsCorrupted);
+        map.put("corruptionsUndetected", corruptionsUndetected);
+        map.put("detectionRate", getDetectionRate());
+        map.put("packetsReceived", packetsReceived);
+        map.put("queueDrops", queueDrops);
+        map.put("queuePeak", queuePeak);
+        map.put("packetsReordered", packetsReordered);
+        map.put("packetsDuplicated", packetsDuplicated);
+        map.put("timeouts", timeouts);
+        map.put("retransmissions", retransmissions);
+        map.put("retransmissionRatio", packetsSent > 0 ? (double) retransmissions / packetsSent : 0.0);
+        map.put("duplicateAcks", duplicateAcks);
+        map.put("fastRetransmits", fastRetransmits);
+        map.put("windowProbes", windowProbes);
+        map.put("acksPiggybacked", acksPiggybacked);
+        map.put("efficiency", getEfficiency());
+        map.put("stallTime", stall.getSum());
+        map.put("bufferPeak", bufferPeak);
+        map.put("bufferCapacity", bufferCapacity);
+        map.put("blockedTime", blockedTime);
+        putHistogram(map, "latency", latency);
+        putHistogram(map, "gap", gap);
+        putHistogram(map, "stall", stall);
+        return map;
+    }
+
+    /**
+     * Writes the metrics as a JSON object. Histograms are written as objects holding their statistics and the lower
+     * bound and count of every non-empty bucket.
+     *
+     * @param out where to write
+     * @throws IOException if writing fails
+     */
+    public void writeJson(Writer out) throws IOException {
+        out.write("{\n");
+        for (Map.Entry<String, Number> metric : toMap().entrySet()) {
+            if (!metric.getKey().contains(".")) {
+                out.write("  \"" + metric.getKey() + "\": " + metric.getValue() + ",\n");
+            }
+        }
+        writeJson(out, "latency", latency);
+        out.write(",\n");
+        writeJson(out, "gap", gap);
+        out.write(",\n");
+        writeJson(out, "stall", stall);
+        out.write("\n}\n");
+    }
+
+    /**
+     * Writes the metrics as CSV, with a header row of metric names and one row of values.
+     *
+     * @param out where to write
+     * @throws IOException if writing fails
+     */
+    public void writeCsv(Writer out) throws IOException {
+        Map<String, Number> map = toMap();
+        out.write(String.join(",", map.keySet()));
+        out.write("\n");
+        boolean first = true;
+        for (Number value : map.values()) {
+            if (!first) {
+                out.write(",");
+            }
+            out.write(value.toString());
+            first = false;
+        }
+        out.write("\n");
+    }
+
+    /**
+     * Writes the congestion window over time as CSV, with a header row and one row per change.
+     *
+     * @param out where to write
+     * @throws IOException if writing fails
+     */
+    public void writeWindowCsv(Writer out) throws IOException {
+        out.write("time,window\n");
+        for (int i = 0; i < windowChanges; i++) {
+            out.write(windowTimes[i] + "," + windowSizes[i] + "\n");
+        }
+    }
+
+    private static void putHistogram(Map<String, Number> map, String name, Histogram h) {
+        map.put(name + ".count", h.getCount());
+        map.put(name + ".mean", h.getMean());
+        map.put(name + ".min", h.getMin());
+        map.put(name + ".max", h.getMax());
+        for (double p : PERCENTILES) {
+            map.put(name + ".p" + percentileName(p), h.getPercentile(p));
+        }
+    }
+
+    private static void writeJson(Writer out, String name, Histogram h) throws IOException {
+        out.write("  \"" + name + "\": {\"count\": " + h.getCount() + ", \"mean\": " + h.getMean()
+                + ", \"min\": " + h.getMin() + ", \"max\": " + h.getMax());
+        for (double p : PERCENTILES) {
+            out.write(", \"p" + percentileName(p) + "\": " + h.getPercentile(p));
+        }
+
+        out.write(", \"buckets\": [");
+        boolean first = true;
+        for (int i = 0; i < h.getBucketCount(); i++) {
+            if (h.getBucket(i) > 0) {
+                out.write((first ? "" : ", ") + "[" + h.lowerBound(i) + ", " + h.getBucket(i) + "]");
+                first = false;
+            }
+        }
+        out.write("]}");
+    }
+
+    /**
+     * @return the percentile as a name, e.g. 99.9 as "99_9"
+     */
+    private static String percentileName(double p) {
+        return p == Math.rint(p) ? Long.toString((long) p) : Double.toString(p).replace('.', '_');
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+
+}
@@ -1,5 +1,6 @@
 package transport;
 
+import java.util.Properties;
 import java.util.Random;
 
 public class NetworkSimulator {
@@ -7,170 +8,388 @@ public class NetworkSimulator {
     // This constant controls the maximum size of the buffer in a Message and in a Packet
     public static final int MAXDATASIZE = 20;
 
-    // These constants represent our sender (A) and receiver (B)
+    // These constants represent our sender (A) and receiver (B) - with several flows, those of the first flow, the
+    // entities of the others being numbered on from them
     public static final int A = 12345;
     public static final int B = 67890;
 
-    // The simulator supports only a single sender host (A)
-    private Sender sender;
-    
-    // The simulator supports only a single receiver host (B)
-    private Receiver receiver;
+    // The most flows a simulation can have, so that the entities of the senders and the receivers do not overlap
+    public static final int MAX_FLOWS = B - A;
+
+    private int flows;                  // the number of sender and receiver pairs, from the "flows" option
+
+    // The hosts by index: the sender of flow i is host 2i and its receiver host 2i + 1. Events refer to hosts by index
+    private NetworkHost[] hosts;
+
+    // The routing table by host index: the host that packets sent by each host are delivered to, and the channel they
+    // travel on. All the senders share one channel and all the receivers the other
+    private int[] routes;
+    private Channel[] links;
 
-    private int maxMessages;            // the maximum number of messages the sender application is allowed to send
+    private int maxMessages;            // the maximum number of messages each sender application is allowed to send
     
     private double lossProb;            // the probability that a packet will be "lost"
     private double corruptProb;         // the probability that a packet will be "corrupted"
+    private String corruption;          // how packets are corrupted: "replace" a field, or flip two "bits"
     
     private double avgMessageDelay;     // the average message delay between messages sent by the application at the sender side
+    private double avgReadDelay;        // the average delay between reads by the application at the receiver side, 0 to read at once
         
     private Random rand;                // A random number generator
 
-    private int nMsgSim;                // number of simulated messages
+    // The state of the application at each host, by host index: the sending application of a sender, the receiving
+    // application of a receiver, or both of a full-duplex host
+    private int[] nMsgSim;              // number of simulated messages
+    private boolean[] appSuspended;     // whether the sender has asked the application layer to stop generating messages
+    private boolean[] arrivalPending;   // whether the next message is waiting for the application layer to resume
+    private double[] suspendedAt;       // the time the application layer was last suspended
+    private Message[] refusedMessage;   // the message the sender last refused, to be offered again on resuming
+    private int[] unread;               // messages delivered to the receiving application which it has not read yet
+    private Message[] appMessage;       // the message from the application layer, filled in again for every message
+    private TrafficSource[] sources;    // when the sending application's messages arrive and how long they are
+
+    private boolean duplex;             // whether the hosts are DuplexHosts with traffic both ways, from the "duplex" option
+    private int current;                // the host handling the current event, which the hosts' calls refer to
     private double time;                // the simulated time
-    
-    private EventList eventList;        // The list of events that the simulator needs to process
 
-    // NetworkSimulator is a Singleton Class. It can only be instantiated once, through the getInstance() method.
-    // Accessing members of the NetworkSimulator class (from any other class) is done through calling getInstance().
-    private static NetworkSimulator instance = null;
+    private EventStore events;          // the events that the simulator needs to process, as arrays of fields
+    private EventList eventList;        // The list of events that the simulator needs to process, in order of time
+    private PacketPool packetPool;      // the packets in transit, reused once they have been received or lost
+    private String eventListType = "heap";  // the implementation of the event list, see EventList.create()
 
-    private NetworkSimulator() {
-        // Exists only to defeat instantiation.
-        // It is private and can only be called by getIstance() below
-    }
+    private Tracer tracer = new PrintStreamTracer(System.out, TraceLevel.PACKET);  // where trace output is written
 
-    // the only way to instantiate and, later, get member values of the NetworkSimulation singleton object
-    // Can only instantiate once
-    public static NetworkSimulator getInstance() {
-        if (instance == null) {
-            instance = new NetworkSimulator();
-        }
-        return instance;
+    private TraceRecorder recorder;     // if not null, every executed event is also recorded in binary form
+
+    private final Properties options = new Properties();    // named settings read by the hosts, e.g. a window size
+
+    private Metrics metrics;            // counters and histograms for the current run
+
+    private ChecksumAlgorithm checksum; // the checksum both hosts use, chosen with the "checksum" option
+
+    // Each NetworkSimulator holds the complete state of one simulation, including its own random number generator.
+    // The hosts it creates are given a reference to it, so several simulators can run independently on different
+    // threads. A single simulator must only be used by one thread at a time.
+    public NetworkSimulator() {
     }
 
     // initialise the NetworkSimulator
     public void initSimulator(int maxMsgs, double loss, double corrupt, double delay, long seed) {
+        flows = getIntOption("flows", 1);
+        if (flows < 1 || flows > MAX_FLOWS) {
+            throw new IllegalArgumentException("flows must be between 1 and " + MAX_FLOWS + ": " + flows);
+        }
+        duplex = Boolean.parseBoolean(getOption("duplex", "false"));
         maxMessages = maxMsgs;
         
         lossProb = loss;
         corruptProb = corrupt;
+        corruption = getOption("corruption", "replace");
+        if (!corruption.equals("replace") && !corruption.equals("bits")) {
+            throw new IllegalArgumentException("unknown corruption type: " + corruption);
+        }
+        checksum = ChecksumAlgorithm.create(getOption("checksum", "sum"));
         
         avgMessageDelay = delay;
 
         rand = new Random(seed);        // instantiate Random number generator with provided seed
 
-        nMsgSim = 0;                    // initialise number of simulated messages to 0
+        nMsgSim = new int[2 * flows];   // initialise number of simulated messages to 0
+        appSuspended = new boolean[2 * flows];  // the application layer starts off generating messages
+        arrivalPending = new boolean[2 * flows];
+        suspendedAt = new double[2 * flows];
+        refusedMessage = new Message[2 * flows];
+        unread = new int[2 * flows];
+        appMessage = new Message[2 * flows];
+        for (int i = 0; i < 2 * flows; i++) {
+            appMessage[i] = new Message();
+        }
+        current = 0;
         time = 0.0;                     // initialise simulation time to 0
+        metrics = new Metrics(flows);
+
+        packetPool = new PacketPool();
+        events = new EventStore(packetPool);
+        eventList = EventList.create(eventListType, events);    // instantiate event list (initially empty)
+
+        Channel channelAB = Channel.create(this, "ab"); // instantiate the channels in each direction (initially empty)
+        Channel channelBA = Channel.create(this, "ba");
+
+        hosts = new NetworkHost[2 * flows];
+        routes = new int[2 * flows];
+        links = new Channel[2 * flows];
+        for (int i = 0; i < flows; i++) {
+            if (duplex) {
+                // both hosts send and receive, each with a sender and a receiver of its own
+                hosts[2 * i] = new DuplexHost(A + i, this);
+                hosts[2 * i + 1] = new DuplexHost(B + i, this);
+            } else {
+                hosts[2 * i] = new Sender(A + i, this);         // initialise sender entity (the respective class)
+                hosts[2 * i + 1] = new Receiver(B + i, this);   // initialise receiver entity (the respective class)
+            }
 
-        eventList = new EventList();    // instantiate event list (initially empty)
-        
-        sender = new Sender(A);         // initialise sender entity (the respective class)
+            // each sender sends to its own receiver and back, but they all share the channel in each direction
+            routes[2 * i] = 2 * i + 1;
+            routes[2 * i + 1] = 2 * i;
+            links[2 * i] = channelAB;
+            links[2 * i + 1] = channelBA;
+        }
 
-        receiver = new Receiver(B);     // initialise receiver entity (the respective class)
+        // each sending host has its own application traffic, chosen with the "traffic" option
+        sources = new TrafficSource[2 * flows];
+        for (int host = 0; host < 2 * flows; host++) {
+            if (duplex || host % 2 == 0) {
+                sources[host] = TrafficSource.create(this, entity(host));
+            }
+        }
     }
 
     // The main simulator loop - everything happens here!
     // When the method exits, the simulator is over and the Java program stops
     public void runSimulator() {
-        Event next;                     // the next Event to process
+        int next;                       // the index in the event store of the next event to process
 
-        sender.init();                  // Students: You will override this method (defined in the NetworkHost) to initialise your Sender.
-        receiver.init();                // Students: You will override this method (defined in the NetworkHost) to initialise your Receiver.
+        avgReadDelay = getDoubleOption("readdelay", 0.0);
 
-        // Start the whole thing off by scheduling a new message from the simulated application
+        // Students: You will override this method (defined in the NetworkHost) to initialise your Sender and Receiver.
+        for (int host = 0; host < hosts.length; host++) {
+            current = host;
+            hosts[host].init();
+        }
+
+        // Start the whole thing off by scheduling a new message from the simulated application of each flow - or of each
+        // host, if they all send
         // Calling this method will add a new FROMAPP Event. 
         // When this Event is executed, your code will be invoked so that the message can be sent to the Receiver
-        generateNextArrival();
+        for (int host = 0; host < hosts.length; host++) {
+            if (duplex || host % 2 == 0) {
+                generateNextArrival(host);
+            }
+        }
 
         // Begin the main simulation loop
         while (true) {
             // Get the next (with respect to the scheduled time) event in the list
             next = eventList.removeNext();
 
-            if (next == null) {
+            if (next < 0) {
                 // we run out of events - exit - end of simulation
                 break;
             }
 
-            System.out.println();
-            System.out.print("EVENT time: " + next.getTime());
-            System.out.print("  type: " + next.getType());
-            System.out.println("  entity: " + next.getEntity());
+            if (events.isCancelled(next)) {
+                // a stopped timer - it never happened, so do not advance the time
+                events.free(next);
+                continue;
+            }
+
+            EventType type = events.getType(next);
+            int host = events.getEntity(next);
+            Packet packet = events.getPacket(next);
+
+            if (type == EventType.FROMNETWORK) {
+                metrics.packetReceived();
+                if (packet.isCorrupted() && !checksum.corrupt(packet)) {
+                    // the hosts will take the corrupted packet for a good one
+                    metrics.corruptionUndetected();
+                }
+            }
+
+            if (recorder != null) {
+                recorder.record(events.getTime(next), type, entity(host), packet);
+            }
+
+            if (tracer.isEnabled(TraceLevel.EVENT)) {
+                tracer.trace("");
+                tracer.trace("EVENT time: " + events.getTime(next) + "  type: " + type + "  entity: " + entity(host));
+            }
 
             // Advance the simulator's time to be the scheduled time of the next event
-            time = next.getTime();
+            time = events.getTime(next);
+
+            // The event has been read, so its index can be reused by the events it schedules
+            events.free(next);
+            current = host;
 
             // Perform the appropriate action based on the event 
-            switch (next.getType()) {
+            switch (type) {
                 case TIMERINTERRUPT:
-                    if (next.getEntity() == A) {
-                        sender.timerInterrupt();
+                    if (host >= 0 && host < hosts.length) {
+                        hosts[host].timerExpired(next);
                     } else {
-                        System.out.println("INTERNAL PANIC: Timeout for invalid entity");
+                        panic("Timeout for invalid entity");
                     }
                     break;
                 case FROMNETWORK:
-                    switch (next.getEntity()) {
-                        case A:
-                            sender.input(next.getPacket());
-                            break;
-                        case B:
-                            receiver.input(next.getPacket());
-                            break;
-                        default:
-                            System.out.println("INTERNAL PANIC: Packet has " + "arrived for unknown entity");
-                            break;
+                    if (host >= 0 && host < hosts.length) {
+                        hosts[host].input(packet);
+                    } else {
+                        panic("Packet has arrived for unknown entity");
                     }
+                    // the host has finished with the packet, so it can be sent again
+                    packetPool.release(packet);
                     break;
                 case FROMAPP:                 
-                    char[] nextMessage = new char[MAXDATASIZE];
-
-                    // Now, let's generate the contents of this message
-                    char j = (char) (((nMsgSim - 1) % 26) + 97);
-                    for (int i = 0; i < MAXDATASIZE; i++) {
-                        nextMessage[i] = j;
+                    Message message;
+                    if (refusedMessage[current] != null) {
+                        // offer the refused message again rather than generating a new one
+                        message = refusedMessage[current];
+                        refusedMessage[current] = null;
+                    } else {
+                        // Now, let's generate the contents of this message, of the length the application chooses
+                        byte j = (byte) (((nMsgSim[current] - 1) % 26) + 97);
+                        byte[] nextMessage = appMessage[current].getBytes();
+                        int size = sources[current].nextSize();
+                        for (int i = 0; i < size; i++) {
+                            nextMessage[i] = j;
+                        }
+                        appMessage[current].setLength(size);
+                        message = appMessage[current];
                     }
 
-                    // Let the student handle the new message
-                    sender.output(new Message(new String(nextMessage)));
+                    // Let the student handle the new message - if the sender did not drop it, start timing its delivery
+                    long dropped = metrics.getMessagesDropped();
+                    hosts[host].output(message);
+                    if (refusedMessage[current] != null) {
+                        // refused - the next message is not generated until this one has been accepted
+                        break;
+                    }
+                    if (metrics.getMessagesDropped() == dropped) {
+                        metrics.messageAccepted(current, time);
+                    }
                     
                     // If a message has arrived from sending process, we need to schedule the arrival of the next message
+                    // - unless the sender has suspended the application layer, in which case it is scheduled on resuming
                     // If we've reached the maximum message count, exit the main loop
-                    if (nMsgSim < maxMessages) {
-                        generateNextArrival();
+                    if (nMsgSim[current] < maxMessages) {
+                        if (appSuspended[current]) {
+                            arrivalPending[current] = true;
+                        } else {
+                            generateNextArrival(current);
+                        }
                     } else {
                         // do not schedule more FROMAPP events from the application layer if we reached the maximum number of messages
                     }
                     
+                    break;
+                case TOAPP:
+                    // the receiving application reads a message, and carries on reading while there are more
+                    unread[current]--;
+                    if (unread[current] > 0) {
+                        generateNextRead(current);
+                    }
+                    hosts[host].applicationRead();
                     break;
                 default:
-                    System.out.println("INTERNAL PANIC: Unknown event type");
+                    panic("Unknown event type");
             }
         }
 
+        metrics.finished(time);
+
+        if (tracer.isEnabled(TraceLevel.SUMMARY)) {
+            tracer.trace("");
+            tracer.trace("SUMMARY: simulation ended at time " + time + ": " + metrics);
+        }
     }
 
-    // Generate the next arrival and add it to the event list
-    private void generateNextArrival() {
-        System.out.println("generateNextArrival(): called");
+    // Called by the sender to stop the application layer generating messages, e.g. because its buffer is full. Like
+    // the other methods the hosts call while handling an event, this applies to the application of the host handling it
+    public void suspendApplication() {
+        if (appSuspended[current]) {
+            return;
+        }
+        appSuspended[current] = true;
+        suspendedAt[current] = time;
 
-        // arrival time 'x' is uniform on [0, 2 * avgMessageDelay] having mean of avgMessageDelay.
-        // rand is used to provide the required uniformness
-        double x = 0.5 * avgMessageDelay + avgMessageDelay * rand.nextDouble();
+        if (tracer.isEnabled(TraceLevel.EVENT)) {
+            tracer.trace("suspendApplication(): application suspended at " + time);
+        }
+    }
 
-        // Instantiate a new FROMAPP Event
-        Event next = new Event(time + x, EventType.FROMAPP, A);
+    // Called by the sender to let the application layer carry on generating messages, measuring the next arrival from now.
+    // A message the sender refused is offered again straight away instead
+    public void resumeApplication() {
+        if (!appSuspended[current]) {
+            return;
+        }
+        appSuspended[current] = false;
+        metrics.blocked(time - suspendedAt[current]);
+
+        if (tracer.isEnabled(TraceLevel.EVENT)) {
+            tracer.trace("resumeApplication(): application resumed at " + time);
+        }
+
+        if (refusedMessage[current] != null) {
+            schedule(time, EventType.FROMAPP, current, EventStore.NO_PACKET);
+        } else if (arrivalPending[current]) {
+            arrivalPending[current] = false;
+            generateNextArrival(current);
+        }
+    }
+
+    // Called through NetworkHost.refuseMessage() when the sender cannot accept a message yet
+    void refused(Message message) {
+        refusedMessage[current] = message;
+        metrics.messageRefused();
+        suspendApplication();
+    }
+
+    // Called through NetworkHost.deliverData(), to pass a message on to the receiving application
+    void delivered() {
+        if (avgReadDelay > 0.0 && ++unread[current] == 1) {
+            generateNextRead(current);
+        }
+    }
+
+    // Report an internal error in the simulator
+    private void panic(String message) {
+        if (tracer.isEnabled(TraceLevel.SUMMARY)) {
+            tracer.trace("INTERNAL PANIC: " + message);
+        }
+    }
 
-        // Add the newly instantiated Event to the EventList
-        eventList.add(next);
+    // Generate the next arrival at a host and add it to the event list
+    private void generateNextArrival(int host) {
+        if (tracer.isEnabled(TraceLevel.EVENT)) {
+            tracer.trace("generateNextArrival(): called");
+        }
+
+        // The host's traffic source decides when the message arrives, by default uniformly on
+        // [0.5 * avgMessageDelay, 1.5 * avgMessageDelay] from now
+        double arrival = sources[host].nextArrival(time);
+        if (arrival == TrafficSource.END) {
+            // the application has no more messages to send
+            return;
+        }
+
+        // Schedule a new FROMAPP event
+        schedule(arrival, EventType.FROMAPP, host, EventStore.NO_PACKET);
         
         // Increment the message counter
-        nMsgSim++;
+        nMsgSim[host]++;
+        metrics.messageGenerated();
         
-        System.out.println("generateNextArrival(): time is " + time);
-        System.out.println("generateNextArrival(): future time for " + "event " + next.getType() + " at entity " + next.getEntity() + " will be " + next.getTime());
+        if (tracer.isEnabled(TraceLevel.EVENT)) {
+            tracer.trace("generateNextArrival(): time is " + time);
+            tracer.trace("generateNextArrival(): future time for " + "event " + EventType.FROMAPP + " at entity " + entity(host) + " will be " + arrival);
+        }
+
+    }
 
+    // Schedule the receiving application's next read, in the same way as the sending application's next message
+    private void generateNextRead(int host) {
+        double x = 0.5 * avgReadDelay + avgReadDelay * rand.nextDouble();
+        schedule(time + x, EventType.TOAPP, host, EventStore.NO_PACKET);
+    }
+
+    // Store a new event and add it to the event list, returning its index in the store. The host is the index of the
+    // host the event is executed at, and the packet the index in the packet pool of the packet involved, or
+    // EventStore.NO_PACKET
+    int schedule(double eventTime, EventType type, int host, int packet) {
+        int e = events.add(eventTime, type, host, packet);
+        eventList.add(e);
+        return e;
     }
 
     public double getLossProb() {
@@ -181,20 +400,141 @@ public class NetworkSimulator {
         return corruptProb;
     }
 
+    // How the network corrupts packets, from the "corruption" option: "replace" (the default) changes the first byte of
+    // the payload, the sequence number or the acknowledgment number, while "bits" flips two random bits of them
+    public String getCorruption() {
+        return corruption;
+    }
+
+    public ChecksumAlgorithm getChecksum() {
+        return checksum;
+    }
+
     public double getAvgMessageDelay() {
         return avgMessageDelay;
     }
 
+    // Select the event list implementation used by the next call to initSimulator(), either "heap" or "calendar"
+    public void setEventListType(String type) {
+        EventList.create(type, null);   // fail now rather than at initialisation if the type is not recognised
+        eventListType = type;
+    }
+
     public EventList getEventList() {
         return eventList;
     }
 
+    public EventStore getEvents() {
+        return events;
+    }
+
+    public PacketPool getPacketPool() {
+        return packetPool;
+    }
+
+    // Returns the channel carrying packets sent by the given entity, or null if the entity is unknown
+    public Channel getChannel(int from) {
+        return getLink(hostIndex(from));
+    }
+
+    // The routing table: the index of the host that packets sent by a host are delivered to, by host index
+    int getRoute(int host) {
+        return routes[host];
+    }
+
+    // The routing table: the channel carrying packets sent by a host, by host index, or null if there is no such host
+    Channel getLink(int host) {
+        return host >= 0 && host < links.length ? links[host] : null;
+    }
+
+    // The index of the host with the given entity: 2i for the sender of flow i, 2i + 1 for its receiver, or -1 if the
+    // entity is neither
+    static int hostIndex(int entity) {
+        if (entity >= A && entity < A + MAX_FLOWS) {
+            return 2 * (entity - A);
+        } else if (entity >= B && entity < B + MAX_FLOWS) {
+            return 2 * (entity - B) + 1;
+        } else {
+            return -1;
+        }
+    }
+
+    // The entity of the host with the given index, the reverse of hostIndex()
+    static int entity(int host) {
+        return host % 2 == 0 ? A + host / 2 : B + host / 2;
+    }
+
+    // The number of sender and receiver pairs, each running its own instance of the protocol, from the "flows" option
+    public int getFlows() {
+        return flows;
+    }
+
+    // Whether both hosts of every flow send and receive, from the "duplex" option
+    public boolean isDuplex() {
+        return duplex;
+    }
+
+    // Set the tracer used for all output from the simulator and its hosts; by default everything goes to System.out
+    public void setTracer(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    public Tracer getTracer() {
+        return tracer;
+    }
+
+    // Set a recorder to write every executed event to a binary trace file, or null to stop recording
+    public void setRecorder(TraceRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    public TraceRecorder getRecorder() {
+        return recorder;
+    }
+
+    // Set a named option for the hosts; each protocol documents the options it reads in its init() method
+    public void setOption(String name, String value) {
+        options.setProperty(name, value);
+    }
+
+    public String getOption(String name, String defaultValue) {
+        return options.getProperty(name, defaultValue);
+    }
+
+    public int getIntOption(String name, int defaultValue) {
+        String value = options.getProperty(name);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    public double getDoubleOption(String name, double defaultValue) {
+        String value = options.getProperty(name);
+        return value == null ? defaultValue : Double.parseDouble(value.trim());
+    }
+
+    // A setting of the channel in one direction, "ab" or "ba": the option "channel.<direction>.<name>" if it is set,
+    // otherwise "channel.<name>" for both directions
+    public double getChannelOption(String direction, String name, double defaultValue) {
+        return getDoubleOption("channel." + direction + "." + name, getDoubleOption("channel." + name, defaultValue));
+    }
+
     public Random getRand() {
         return rand;
     }
 
+    // The number of messages generated so far by the application of the host handling the current event
     public int getnSim() {
-        return nMsgSim;
+        return nMsgSim[current];
+    }
+
+    // The number of messages delivered to the receiving application of the host handling the current event that it has
+    // not read yet, always 0 unless the "readdelay" option is set
+    public int getUnread() {
+        return unread[current];
+    }
+
+
+    public Metrics getMetrics() {
+        return metrics;
     }
     
     public double getTime() {
@@ -0,0 +1,53 @@
+package transport;
+
+/**
+ * An application which sends in bursts, like many sources of real traffic: on periods, during which messages arrive
+ * at a constant rate, alternate with off periods, during which none do. The lengths of both follow Pareto
+ * distributions, whose heavy tails make for the occasional very long burst or silence.
+ * <p>
+ * The average lengths of the periods are set with the options "traffic.on" and "traffic.off", both five times the
+ * average time between messages by default, and the Pareto shape with "traffic.shape" (default 1.5, which must be more
+ * than 1). Messages arrive faster during a burst, so that they still come at the average time between messages
+ * overall.
+ */
+public class OnOffTraffic extends GeneratedTraffic {
+
+    private final double onMean;        // the average length of an on period
+    private final double offMean;       // the average length of an off period
+    private final double shape;         // the shape of the Pareto distributions
+    private final double interval;      // the time between messages during an on period
+    private double burstEnd;            // the time the current on period ends
+
+    public OnOffTraffic(NetworkSimulator simulator) {
+        super(simulator);
+        onMean = simulator.getDoubleOption("traffic.on", 5.0 * getAvgMessageDelay());
+        offMean = simulator.getDoubleOption("traffic.off", 5.0 * getAvgMessageDelay());
+        shape = simulator.getDoubleOption("traffic.shape", 1.5);
+        if (shape <= 1.0) {
+            throw new IllegalArgumentException("the Pareto shape must be more than 1 for the mean to exist: " + shape);
+        }
+        interval = getAvgMessageDelay() * onMean / (onMean + offMean);
+        burstEnd = pareto(onMean);
+    }
+
+    @Override
+    public double nextArrival(double now) {
+        double next = now + interval;
+        if (next > burstEnd) {
+            // the burst is over - stay silent for an off period, and then start a new burst
+            next = Math.max(now, burstEnd) + pareto(offMean);
+            burstEnd = next + pareto(onMean);
+        }
+        return next;
+    }
+
+    /**
+     * Draws from a Pareto distribution with the given mean and the source's shape, by inverting its distribution
+     * function.
+     */
+    private double pareto(double mean) {
+        double scale = mean * (shape - 1.0) / shape;
+        return scale / Math.pow(1.0 - getRand().nextDouble(), 1.0 / shape);
+    }
+
+}
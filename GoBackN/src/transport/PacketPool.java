@@ -0,0 +1,82 @@
+package transport;
+
+import java.util.Arrays;
+
+/**
+ * The packets in transit through the simulated network. Each packet sent is a copy of the host's packet, so that the
+ * network can corrupt it without touching the copy the host keeps for retransmission. Rather than allocating a new
+ * packet for every transmission, copies are taken from this pool and returned to it once the network has lost the
+ * packet or the receiving host's input() has returned.
+ * <p>
+ * Every packet the pool creates is given an index, by which an {@link EventStore} refers to the packet of an event. The
+ * indices of the free packets are kept in a stack, which grows to the largest number of packets in transit at once. A
+ * pool belongs to one simulator and is not thread safe.
+ */
+public class PacketPool {
+
+    private Packet[] packets;   // every packet created, by index
+    private int[] free;         // the indices of the packets in the pool
+    private int count;
+    private int created;
+
+    public PacketPool() {
+        packets = new Packet[64];
+        free = new int[64];
+        count = 0;
+        created = 0;
+    }
+
+    /**
+     * Takes a packet from the pool, or creates one if the pool is empty, and fills it in as a copy of another.
+     *
+     * @param p the packet to copy
+     * @return a packet owned by the caller until it is released
+     */
+    public Packet copy(Packet p) {
+        Packet packet;
+        if (count > 0) {
+            packet = packets[free[--count]];
+        } else {
+            if (created == packets.length) {
+                packets = Arrays.copyOf(packets, created * 2);
+                free = Arrays.copyOf(free, created * 2);
+            }
+            packet = new Packet(created);
+            packets[created++] = packet;
+        }
+        packet.copyFrom(p);
+        return packet;
+    }
+
+    /**
+     * @param index the index of a packet created by this pool, from {@link Packet#getIndex()}
+     * @return the packet
+     */
+    public Packet get(int index) {
+        return packets[index];
+    }
+
+    /**
+     * Returns a packet to the pool. It must not be used again by the caller.
+     *
+     * @param packet a packet taken from this pool with {@link #copy(Packet)}
+     */
+    public void release(Packet packet) {
+        free[count++] = packet.getIndex();
+    }
+
+    /**
+     * @return the number of packets in the pool
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return the number of packets the pool has ever created, i.e. the most that were in use at once
+     */
+    public int getCreated() {
+        return created;
+    }
+
+}
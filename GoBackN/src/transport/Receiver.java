@@ -1,17 +1,64 @@
 package transport;
 
 /**
- * A network host which receives data from a sender using a reliable stop-and-wait transfer protocol.
+ * A network host which receives data from a sender using a reliable Go-Back-N transfer protocol. Every
+ * acknowledgement advertises how much room is left in the receive buffer, the messages delivered which the application
+ * has not read yet, so that the sender does not send packets which would have to be discarded.
+ * <p>
+ * With selective acknowledgements turned on, packets which arrive after a missing one are kept rather than discarded,
+ * and each acknowledgement lists the ranges of them received (RFC 2018), so that the sender only has to send the
+ * missing packets again.
  *
  * @author 153728
  */
 public class Receiver extends NetworkHost {
 
+    /**
+     * The default size of the receive buffer, in packets - the largest window TCP can advertise without window
+     * scaling. This can be changed with the simulator option "rcvbuffer".
+     */
+    private static final int RECEIVE_BUFFER = 65535;
+
+    /**
+     * The default largest number of selective acknowledgement blocks in an acknowledgement. Zero turns selective
+     * acknowledgements off, which is the default; TCP has room for 3 or 4. This can be changed with the simulator
+     * option "sack".
+     */
+    private static final int SACK_BLOCKS = 0;
+
+    /**
+     * The number of delivered messages the application may leave unread.
+     */
+    private int bufferSize;
+
     /**
      * The sequence number of the next expected packet. Initially 0.
      */
     private int expectedSeqNum;
 
+    /**
+     * The largest number of selective acknowledgement blocks to send, or zero if they are turned off.
+     */
+    private int sackBlocks;
+
+    /**
+     * Copies of packets received after the expected one, as a ring indexed by sequence number which grows to fit the
+     * packets received, and whether each slot holds a packet which has been received. The copies are reused.
+     */
+    private Packet[] received;
+    private boolean[] kept;
+
+    /**
+     * The selective acknowledgement blocks to send, one array for each number of blocks, so that they are not
+     * allocated for every acknowledgement.
+     */
+    private int[][] blocks;
+
+    /**
+     * One more than the highest sequence number in {@link #received}, or the expected sequence number if it is empty.
+     */
+    private int receivedEnd;
+
     /**
      * The acknowledgement packet for the highest correctly-received packet with the highest
      * in-order sequence number.
@@ -21,31 +68,182 @@ public class Receiver extends NetworkHost {
     /**
      * {@inheritDoc}
      */
-    public Receiver(int entityName) {
-        super(entityName);
+    public Receiver(int entityName, NetworkSimulator simulator) {
+        super(entityName, simulator);
     }
 
     @Override
     public void init() {
         //set the expected sequence number of the first packet received
         expectedSeqNum = 1;
+        bufferSize = getSimulator().getIntOption("rcvbuffer", RECEIVE_BUFFER);
+        sackBlocks = getSimulator().getIntOption("sack", SACK_BLOCKS);
+        received = new Packet[16];
+        kept = new boolean[16];
+        blocks = new int[sackBlocks + 1][];
+        for (int i = 1; i <= sackBlocks; i++) {
+            blocks[i] = new int[2 * i];
+        }
+        receivedEnd = expectedSeqNum;
         //also prepare the acknowledgement packet for this first packet received
-        sendPacket = new Packet(0, expectedSeqNum - 1, Checksum.compute(0, expectedSeqNum - 1));
+        sendPacket = new Packet(0, expectedSeqNum - 1, getChecksum().compute(0, expectedSeqNum - 1, 0));
     }
 
+    /**
+     * Callback function which handles a packet from the sender. A valid packet with the expected sequence number is
+     * delivered and acknowledged, unless the receive buffer is full, in which case it is discarded like any other
+     * packet and the previous acknowledgement sent again. With selective acknowledgements, a valid packet after the
+     * expected one is kept if there is room for it, and delivered once the packets before it have arrived.
+     *
+     * @param packet the received packet
+     */
     @Override
     public void input(Packet packet) {
-        if (!Checksum.corrupt(packet) && packet.getSeqnum() == expectedSeqNum) {
-            //packet is valid and expected, deliver to application layer and then send ACK
-            // for this packet
-            deliverData(packet.getPayload());
-            sendPacket.setAcknum(expectedSeqNum);
-            sendPacket.setChecksum(Checksum.compute(0, expectedSeqNum));
-            udtSend(sendPacket);
+        int seq = packet.getSeqnum();
+        if (!getChecksum().corrupt(packet) && seq == expectedSeqNum && window() > 0) {
+            //packet is valid and expected, deliver to application layer along with any kept packets which follow it,
+            // and then send ACK for the last of them
+            deliverData(packet.getPayloadBytes(), packet.getPayloadLength());
             ++expectedSeqNum;
-        } else {
-            udtSend(sendPacket);
+            while (expectedSeqNum < receivedEnd && kept[index(expectedSeqNum)]) {
+                Packet next = received[index(expectedSeqNum)];
+                deliverData(next.getPayloadBytes(), next.getPayloadLength());
+                kept[index(expectedSeqNum)] = false;
+                ++expectedSeqNum;
+            }
+            receivedEnd = Math.max(receivedEnd, expectedSeqNum);
+            sendPacket.setAcknum(expectedSeqNum - 1);
+        } else if (sackBlocks > 0 && !getChecksum().corrupt(packet)
+                && seq > expectedSeqNum && seq - expectedSeqNum < window()) {
+            //valid but out of order - keep it until the packets before it arrive
+            keep(packet);
+        }
+
+        if (sackBlocks > 0) {
+            sendPacket.setSack(sackBlocks(seq));
+        }
+        sendPacket.setWindow(window());
+        sendAck();
+    }
+
+    /**
+     * Callback function which is invoked when the application has read a message. If that has opened a closed window,
+     * the sender is told straight away with the previous acknowledgement; if this is lost, the sender probes the
+     * window when its timer expires.
+     */
+    @Override
+    public void applicationRead() {
+        if (window() == 1) {
+            sendPacket.setWindow(1);
+            sendAck();
+        }
+    }
+
+    /**
+     * Computes the checksum of the acknowledgement, over everything in it including the window, and sends it.
+     */
+    private void sendAck() {
+        sendPacket.setChecksum(getChecksum().compute(0, sendPacket.getAcknum(), sendPacket.getWindow(), null, 0,
+                sendPacket.getSack()));
+        udtSend(sendPacket);
+    }
+
+    /**
+     * Keeps a copy of a packet received out of order, growing the ring if it does not fit.
+     *
+     * @param packet the packet, whose sequence number is after the expected one
+     */
+    private void keep(Packet packet) {
+        int seq = packet.getSeqnum();
+        while (seq - expectedSeqNum >= received.length) {
+            Packet[] larger = new Packet[received.length * 2];
+            boolean[] largerKept = new boolean[larger.length];
+            for (int s = expectedSeqNum; s < receivedEnd; s++) {
+                larger[s & (larger.length - 1)] = received[index(s)];
+                largerKept[s & (larger.length - 1)] = kept[index(s)];
+            }
+            received = larger;
+            kept = largerKept;
+        }
+
+        int i = index(seq);
+        if (received[i] == null) {
+            received[i] = new Packet();
         }
+        received[i].copyFrom(packet);
+        kept[i] = true;
+        receivedEnd = Math.max(receivedEnd, seq + 1);
+    }
+
+    /**
+     * Lists the ranges of packets kept after the expected one. The range holding the packet just received comes
+     * first, as it is the most up to date, followed by the others in order of sequence number.
+     *
+     * @param seq the sequence number of the packet just received
+     * @return pairs of the first and one past the last sequence number of each range, or null if there are none
+     */
+    private int[] sackBlocks(int seq) {
+        int[] edges = blocks[sackBlocks];
+        int count = 0;
+
+        //the range holding the packet just received
+        if (seq > expectedSeqNum && seq < receivedEnd && kept[index(seq)]) {
+            int start = seq;
+            while (start - 1 > expectedSeqNum && kept[index(start - 1)]) {
+                --start;
+            }
+            int end = seq + 1;
+            while (end < receivedEnd && kept[index(end)]) {
+                ++end;
+            }
+            edges[0] = start;
+            edges[1] = end;
+            count = 1;
+        }
+
+        //then the others, from the first
+        int s = expectedSeqNum + 1;
+        while (s < receivedEnd && count < sackBlocks) {
+            if (!kept[index(s)]) {
+                ++s;
+                continue;
+            }
+            int start = s;
+            while (s < receivedEnd && kept[index(s)]) {
+                ++s;
+            }
+            if (count == 0 || start != edges[0]) {
+                edges[2 * count] = start;
+                edges[2 * count + 1] = s;
+                ++count;
+            }
+        }
+
+        if (count == 0) {
+            return null;
+        }
+        //the largest array is also used for working, so fewer blocks are copied into an array of the right size
+        if (count < sackBlocks) {
+            System.arraycopy(edges, 0, blocks[count], 0, 2 * count);
+        }
+        return blocks[count];
+    }
+
+    /**
+     * Finds the index in the ring of kept packets given a sequence number.
+     *
+     * @param seq the sequence number of the packet
+     * @return the sequence number's index in the ring
+     */
+    private int index(int seq) {
+        return seq & (received.length - 1);
+    }
+
+    /**
+     * @return the number of packets after the last one acknowledged which there is room for
+     */
+    private int window() {
+        return bufferSize - getSimulator().getUnread();
     }
 
 }
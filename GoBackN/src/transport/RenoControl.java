@@ -0,0 +1,64 @@
+package transport;
+
+/**
+ * Congestion control in the style of TCP Reno (RFC 5681). The window starts at one packet and grows by one packet
+ * per acknowledged packet - doubling every round trip - until it reaches the slow start threshold. After that it grows
+ * by a fixed amount per round trip (congestion avoidance). A timeout multiplies the threshold down from the current
+ * window and starts again from one packet, while a fast retransmit only cuts the window to the new threshold.
+ */
+public class RenoControl implements CongestionControl {
+
+    /**
+     * The smallest slow start threshold, so that slow start always gets past a single packet.
+     */
+    private static final double MIN_THRESHOLD = 2.0;
+
+    private final int maxWindow;
+    private final double increase;
+    private final double decrease;
+
+    private double window;
+    private double threshold;
+
+    public RenoControl(int maxWindow, double increase, double decrease) {
+        this.maxWindow = maxWindow;
+        this.increase = increase;
+        this.decrease = decrease;
+        this.window = 1.0;
+        this.threshold = maxWindow;
+    }
+
+    @Override
+    public double getWindow() {
+        return window;
+    }
+
+    @Override
+    public void acked(int packets) {
+        for (int i = 0; i < packets; i++) {
+            if (window < threshold) {
+                window += 1.0;
+            } else {
+                window += increase / window;
+            }
+        }
+        window = Math.min(window, maxWindow);
+    }
+
+    @Override
+    public void timeout() {
+        threshold = Math.max(window * decrease, MIN_THRESHOLD);
+        window = 1.0;
+    }
+
+    /**
+     * Halves the window (or whatever the decrease factor is) and continues in congestion avoidance, as in Reno's fast
+     * recovery.
+     */
+    @Override
+    public void fastRetransmit() {
+        threshold = Math.max(window * decrease, MIN_THRESHOLD);
+        window = threshold;
+    }
+
+}
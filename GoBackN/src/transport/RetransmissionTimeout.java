@@ -0,0 +1,58 @@
+package transport;
+
+/**
+ * Decides how long a sender waits for an acknowledgement before sending a packet again. The sender reports the round
+ * trip time of each packet acknowledged without having been retransmitted (Karn's rule - the acknowledgement of a
+ * retransmitted packet could be for either copy), as well as when a retransmitted packet is acknowledged, and reports
+ * each timeout so that the timeout can be backed off.
+ */
+public interface RetransmissionTimeout {
+
+    /**
+     * @return the time to wait for an acknowledgement of a packet sent now
+     */
+    double get();
+
+    /**
+     * Records a round trip time measured for a packet which was only sent once.
+     *
+     * @param rtt the time between sending the packet and receiving its acknowledgement
+     */
+    void sample(double rtt);
+
+    /**
+     * Records that a packet which was sent more than once has been acknowledged. This is not a round trip time sample,
+     * since the acknowledgement could be for any copy of the packet, but it shows that packets are getting through, so
+     * a timeout which does not depend on round trip times can stop backing off.
+     *
+     * @param elapsed the time between sending the packet for the last time and receiving its acknowledgement
+     */
+    void retransmissionAcked(double elapsed);
+
+    /**
+     * Records that the timer has expired, so the timeout should be longer until the next sample.
+     */
+    void backoff();
+
+    /**
+     * Creates a retransmission timeout of the given type.
+     *
+     * @param type either "fixed" for a {@link FixedTimeout} or "adaptive" for an {@link AdaptiveTimeout}
+     * @param initial the fixed timeout, or the timeout to use before the first round trip time sample
+     * @param maxBackoff the largest a fixed timeout is backed off to, as a multiple of its length, or 1 to never back
+     *            it off
+     * @return a new retransmission timeout
+     * @throws IllegalArgumentException if the type is not recognised
+     */
+    static RetransmissionTimeout create(String type, double initial, double maxBackoff) {
+        switch (type) {
+            case "fixed":
+                return new FixedTimeout(initial, maxBackoff);
+            case "adaptive":
+                return new AdaptiveTimeout(initial);
+            default:
+                throw new IllegalArgumentException("unknown retransmission timeout type: " + type);
+        }
+    }
+
+}
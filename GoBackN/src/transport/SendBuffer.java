@@ -0,0 +1,198 @@
+package transport;
+
+/**
+ * The packets a sender has accepted from the application layer but which have not been acknowledged yet, indexed by
+ * sequence number, together with when each was last sent and whether the receiver has selectively acknowledged it.
+ * The packets are kept in a ring whose size is a power of two, so a sequence number is turned into a slot with a mask
+ * rather than a division. The packet in a slot is kept when it is released, and filled in again for the next sequence
+ * number which uses the slot.
+ * <p>
+ * What happens when the application offers more packets than the buffer's limit depends on the {@link Policy}.
+ */
+public class SendBuffer {
+
+    /**
+     * What a sender does with a message from the application layer when its buffer is at the limit.
+     */
+    public enum Policy {
+
+        /**
+         * The message is dropped.
+         */
+        DROP,
+
+        /**
+         * The buffer doubles in size, so messages are never dropped. There is no limit.
+         */
+        GROW,
+
+        /**
+         * The application layer is suspended as soon as the buffer reaches the limit, and resumed once an
+         * acknowledgement makes room, so messages are delayed at the application rather than dropped.
+         */
+        BLOCK
+
+    }
+
+    private final Policy policy;
+    private final int limit;
+
+    // the ring of packets and what is known about their transmission, all indexed by (sequence number & mask)
+    private Packet[] packets;
+    private double[] sendTimes;
+    private boolean[] retransmitted;
+    private boolean[] sacked;
+    private int mask;
+
+    // the sequence number of the oldest packet held, and one past the newest
+    private int first;
+    private int end;
+
+    /**
+     * Creates an empty send buffer.
+     *
+     * @param policy what to do when the buffer is at the limit
+     * @param limit the most packets held at once, except with {@link Policy#GROW} where it is only the initial size
+     * @param firstSeq the sequence number of the first packet which will be added
+     */
+    public SendBuffer(Policy policy, int limit, int firstSeq) {
+        this.policy = policy;
+        this.limit = limit;
+        this.first = this.end = firstSeq;
+        allocate(Integer.highestOneBit(Math.max(limit - 1, 1)) << 1);
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @return true if no more packets may be added
+     */
+    public boolean isFull() {
+        return policy != Policy.GROW && end - first >= limit;
+    }
+
+    /**
+     * @return the number of packets held
+     */
+    public int size() {
+        return end - first;
+    }
+
+    /**
+     * @return the number of packet slots allocated
+     */
+    public int capacity() {
+        return packets.length;
+    }
+
+    /**
+     * Adds a packet after the newest one, growing the ring if it has no free slot. The caller checks
+     * {@link #isFull()} first, and then fills in the packet returned.
+     *
+     * @return the packet for the sequence number after the newest packet's
+     */
+    public Packet add() {
+        if (end - first == packets.length) {
+            grow();
+        }
+        int i = end & mask;
+        if (packets[i] == null) {
+            packets[i] = new Packet();
+        }
+        sendTimes[i] = 0.0;
+        retransmitted[i] = false;
+        sacked[i] = false;
+        ++end;
+        return packets[i];
+    }
+
+    /**
+     * Removes every packet before the given sequence number, once they have been acknowledged.
+     *
+     * @param seq the sequence number of the oldest packet to keep
+     */
+    public void release(int seq) {
+        first = Math.max(first, Math.min(seq, end));
+    }
+
+    public Packet get(int seq) {
+        return packets[seq & mask];
+    }
+
+    /**
+     * Records that a packet has been sent.
+     *
+     * @param seq the sequence number of the packet
+     * @param time the current simulation time
+     * @param retransmission whether the packet has been sent before
+     */
+    public void sent(int seq, double time, boolean retransmission) {
+        sendTimes[seq & mask] = time;
+        retransmitted[seq & mask] = retransmission;
+    }
+
+    /**
+     * @return the time at which the packet was last sent
+     */
+    public double getSendTime(int seq) {
+        return sendTimes[seq & mask];
+    }
+
+    /**
+     * @return true if the packet has been sent more than once
+     */
+    public boolean isRetransmitted(int seq) {
+        return retransmitted[seq & mask];
+    }
+
+    /**
+     * Records that the receiver has the packet, from a selective acknowledgement, so it need not be sent again.
+     *
+     * @param seq the sequence number of the packet, which must be held
+     */
+    public void sack(int seq) {
+        sacked[seq & mask] = true;
+    }
+
+    /**
+     * @return true if the receiver has selectively acknowledged the packet
+     */
+    public boolean isSacked(int seq) {
+        return sacked[seq & mask];
+    }
+
+    /**
+     * Doubles the size of the ring, keeping each packet at the slot given by its sequence number.
+     */
+    private void grow() {
+        Packet[] oldPackets = packets;
+        double[] oldSendTimes = sendTimes;
+        boolean[] oldRetransmitted = retransmitted;
+        boolean[] oldSacked = sacked;
+        int oldMask = mask;
+
+        allocate(packets.length * 2);
+        for (int seq = first; seq < end; seq++) {
+            packets[seq & mask] = oldPackets[seq & oldMask];
+            sendTimes[seq & mask] = oldSendTimes[seq & oldMask];
+            retransmitted[seq & mask] = oldRetransmitted[seq & oldMask];
+            sacked[seq & mask] = oldSacked[seq & oldMask];
+        }
+    }
+
+    /**
+     * Replaces the ring with empty arrays of the given size.
+     *
+     * @param size the number of slots - a power of two
+     */
+    private void allocate(int size) {
+        packets = new Packet[size];
+        sendTimes = new double[size];
+        retransmitted = new boolean[size];
+        sacked = new boolean[size];
+        mask = size - 1;
+    }
+
+}
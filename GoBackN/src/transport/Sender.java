@@ -1,171 +1,423 @@
 package transport;
 
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.Locale;
 
 /**
- * A network host which sends data to a receiver using a reliable stop-and-wait transfer protocol.
+ * A network host which sends data to a receiver using a reliable Go-Back-N transfer protocol. The number of packets
+ * in transit is limited by a congestion window, chosen with the simulator option "cc": "none" keeps a fixed window,
+ * while "reno" and "aimd" grow the window as packets are acknowledged and shrink it on a timeout. The number is also
+ * limited by the window the receiver advertises, which closes when the receiving application falls behind.
+ * <p>
+ * If the receiver sends selective acknowledgements, packets it already has are not sent again. A packet which has not
+ * been selectively acknowledged, below one which has, is missing, and after a fast retransmit these holes are sent
+ * again as they are found, rather than the whole window.
  *
  * @author 153728
  */
 public class Sender extends NetworkHost {
 
     /**
-     * The maximum time to wait for a response after sending a packet.
+     * The time to wait for a response after sending a packet, before backing off. With the simulator option "rto" set
+     * to "adaptive", this is only the timeout used until the first round trip time has been measured.
      */
     private static final int TIMER_LENGTH = 50;
 
     /**
-     * The number of consecutive unacknowledged packets allowed to be in transit at one time.
+     * The largest the fixed timer is backed off to, as a multiple of its length. A full window takes the channel about
+     * 80 time units to carry, longer than the timer, so a timer which never backed off would send the window again
+     * before the last copy had arrived, and the copies would queue up faster than they drain. Backing off to 200 lets
+     * two full windows drain, without waiting long to recover from losses.
+     */
+    private static final int MAX_BACKOFF = 4;
+
+    /**
+     * The default number of consecutive unacknowledged packets allowed to be in transit at one time, without
+     * congestion control. This can be changed with the simulator option "window".
      */
     private static final int WINDOW_SIZE = 8;
 
     /**
-     * The size of the packet buffer. When {@link #WINDOW_SIZE} packets are waiting for acknowledgement
-     * from the receiver, there are a further available 50 slots available for buffering messages 
-     * from the application layer. After these slots are filled, any further messages from the application 
-     * layer will cause an exception to be thrown.
+     * The default largest congestion window, with congestion control. This can also be changed with the simulator
+     * option "window".
      */
-    private static final int BUFFER_SIZE = WINDOW_SIZE + 50 + 1;
-    
+    private static final int MAX_CONGESTION_WINDOW = 64;
+
+    /**
+     * The default number of duplicate acknowledgements which trigger a fast retransmit. Zero turns fast retransmit off,
+     * which is the default; TCP uses 3. This can be changed with the simulator option "dupacks".
+     */
+    private static final int DUPACK_THRESHOLD = 0;
+
+    /**
+     * The number of packet buffer slots beyond the window. When the window is full of packets waiting for
+     * acknowledgement from the receiver, there are a further 50 slots available for buffering messages
+     * from the application layer. After these slots are filled, what happens to further messages from the
+     * application layer depends on the simulator option "sendbuffer": they are dropped ("drop", the default),
+     * the buffer grows ("grow"), or the application is suspended until there is room ("block").
+     */
+    private static final int BUFFER_SLACK = 50;
+
+    /**
+     * The largest number of consecutive unacknowledged packets allowed to be in transit at one time.
+     */
+    private int windowSize;
+
     /**
-     * The index of the start of the window in the packet buffer.
+     * The sequence number of the oldest unacknowledged packet.
      */
     private int base;
 
     /**
-     * The sequence number of the next packet to be sent through to the receiver.
+     * The sequence number of the next packet to be sent through to the receiver for the first time, or again after a
+     * timeout.
+     */
+    private int nextToSend;
+
+    /**
+     * One more than the highest sequence number ever sent, so that packets sent again can be told apart.
+     */
+    private int highestSent;
+
+    /**
+     * The sequence number to give to the next message from the application layer.
      */
     private int nextSeqNum;
 
     /**
-     * The packets that are currently unacknowledged as sent, awaiting a response from the receiver.
+     * The packets that are currently unacknowledged as sent, awaiting a response from the receiver, and the packets
+     * waiting for room in the window.
+     */
+    private SendBuffer buffer;
+
+    /**
+     * The length of the timer, fixed or estimated from round trip times depending on the "rto" option.
+     */
+    private RetransmissionTimeout rto;
+
+    /**
+     * The congestion window, depending on the "cc" option.
      */
-    private Packet[] buffer;
+    private CongestionControl cc;
+
+    /**
+     * The number of duplicate acknowledgements which trigger a fast retransmit, or zero if it is turned off.
+     */
+    private int dupAckThreshold;
+
+    /**
+     * The number of duplicate acknowledgements of the packet before the base received since the base last moved.
+     */
+    private int dupAcks;
+
+    /**
+     * The highest sequence number sent when the window was last sent again. Until the base passes it, duplicate
+     * acknowledgements may be caused by the copies sent again rather than a new loss, so they do not trigger a fast
+     * retransmit (the "recover" point of NewReno, RFC 6582).
+     */
+    private int recover;
+
+    /**
+     * The highest sequence number the receiver has room for, from the window it last advertised. Until the first
+     * acknowledgement arrives, the receiver is assumed to have room for everything.
+     */
+    private int receiverLimit;
+
+    /**
+     * One more than the highest sequence number the receiver has selectively acknowledged.
+     */
+    private int highestSacked;
+
+    /**
+     * During recovery from a fast retransmit, the sequence number below which every hole has been sent again.
+     */
+    private int holesSent;
 
     /**
      * {@inheritDoc}
      */
-    public Sender(int entityName) {
-        super(entityName);
+    public Sender(int entityName, NetworkSimulator simulator) {
+        super(entityName, simulator);
     }
 
     /**
      * Callback function which initialises the state of the sender. The sender initially waits for a message from the
-     * application layer. The initial sequence number is 1.
+     * application layer. The initial sequence number is 1. The congestion control algorithm is read from the "cc"
+     * option, its increase and decrease from "cc.increase" and "cc.decrease", and the largest window from "window".
+     * The fast retransmit threshold is read from "dupacks", and the send buffer policy from "sendbuffer".
      */
     @Override
     public void init() {
         //set up the initial sequence number - must be same as receiver side expected value
-        base = nextSeqNum = 1;
-        buffer = new Packet[BUFFER_SIZE];
+        base = nextToSend = highestSent = nextSeqNum = 1;
+
+        NetworkSimulator simulator = getSimulator();
+        String type = simulator.getOption("cc", "none");
+        windowSize = simulator.getIntOption("window", type.equals("none") ? WINDOW_SIZE : MAX_CONGESTION_WINDOW);
+        cc = CongestionControl.create(type, windowSize,
+                simulator.getDoubleOption("cc.increase", 1.0),
+                simulator.getDoubleOption("cc.decrease", 0.5));
+
+        SendBuffer.Policy policy = SendBuffer.Policy.valueOf(
+                simulator.getOption("sendbuffer", "drop").toUpperCase(Locale.ROOT));
+        buffer = new SendBuffer(policy, windowSize + BUFFER_SLACK, base);
+        rto = RetransmissionTimeout.create(simulator.getOption("rto", "fixed"), TIMER_LENGTH, MAX_BACKOFF);
+        dupAckThreshold = simulator.getIntOption("dupacks", DUPACK_THRESHOLD);
+        dupAcks = 0;
+        recover = 0;
+        receiverLimit = Integer.MAX_VALUE;
+        highestSacked = holesSent = 0;
     }
 
     /**
      * Handles reliable transport of an application message through the network to a receiving host. Note: this
-     * implementation buffers messages if there are more than {@link #WINDOW_SIZE} packets currently waiting
-     * for acknowledgement from the receiver. The buffer size is set by {@link #BUFFER_SIZE}, and once this buffer
-     * is full the sender will drop the packets and print a warning.
+     * implementation buffers messages if the congestion window is full of packets waiting for acknowledgement from
+     * the receiver. The buffer has {@link #BUFFER_SLACK} slots beyond the largest window, and once this buffer is full
+     * the sender will drop the packets and print a warning, unless the buffer grows or blocks the application.
      *
      * @param message the message to send
      */
     @Override
     public void output(Message message) {
-        //if the index of the next sequence number is directly below the window start, it means
-        // that we have run out of buffer space.
-        if (index(nextSeqNum) == index(base - 1)) {
-            Logger.getLogger(Sender.class.getName()).log(Level.WARNING, "dropped message: {0}", message);
+        if (buffer.isFull()) {
+            dropMessage(message);
             return;
         }
 
-        //free space in the buffer, so store it
-        buffer[index(nextSeqNum)] = makePacket(nextSeqNum, message.getData());
-
-        if (nextSeqNum < base + WINDOW_SIZE) {
-            //window has free spots - send it now as well
-            udtSend(buffer[index(nextSeqNum)]);
-            if (nextSeqNum == base) {
-                startTimer(TIMER_LENGTH);
-            }
+        //free space in the buffer, so store it - and if that used the last space, hold back the application
+        boolean idle = base == nextSeqNum;
+        makePacket(buffer.add(), nextSeqNum, message);
+        ++nextSeqNum;
+        getSimulator().getMetrics().buffered(buffer.size(), buffer.capacity());
+        if (buffer.isFull() && buffer.getPolicy() == SendBuffer.Policy.BLOCK) {
+            getSimulator().suspendApplication();
         }
 
-        ++nextSeqNum;
+        //send it now as well if the window has free spots, starting the timer if nothing else is waiting - even if the
+        // receiver has no room for it, so that its window is probed
+        sendWindow();
+        if (idle) {
+            startTimer(rto.get());
+        }
     }
 
     /**
      * Handles a new incoming packet from the receiver. If this causes buffered packets to enter
-     * the sending window, they will be sent to the receiver.
+     * the sending window, they will be sent to the receiver. The receiver acknowledges every packet it discards, so
+     * repeated acknowledgements of the packet before the base mean that the base has been lost; after enough of them
+     * the window is sent again without waiting for the timer. An acknowledgement which opens the receiver's window is
+     * not a duplicate, and lets buffered packets be sent. Selective acknowledgements are recorded whatever else the
+     * acknowledgement does, and during recovery any new holes they show are sent again.
      *
      * @param packet the received packet
      */
     @Override
     public void input(Packet packet) {
-        if (Checksum.corrupt(packet))
+        if (getChecksum().corrupt(packet))
             return;
 
         int newBase = packet.getAcknum() + 1;
+        int limit = packet.getAcknum() + packet.getWindow();
+        sacked(packet.getSack());
 
         //only consider packets where the ACK is inside the current window, otherwise
         // ignore and just wait for the timer to run out
-        if (base < newBase) {
+        if (base < newBase && newBase <= highestSent) {
 
             //received a packet which will update the state, so stop the timer - may turn
             // it on again, see below
             stopTimer();
 
-            //step the window along one by one until we reach the new position - check for
-            // buffered packets entering the window and send them
-            while (base < newBase) {
-                Packet curr = buffer[index(base + WINDOW_SIZE)];
-                //check if a packet exists at this slot and that the sequence number is valid
-                if (curr != null && curr.getSeqnum() == base) {
-                    udtSend(curr);
-                }
-                ++base;
+            //measure the round trip time of the acknowledged packet, unless it was sent more than once - then it only
+            // shows that packets are getting through
+            int acked = newBase - 1;
+            double elapsed = getSimulator().getTime() - buffer.getSendTime(acked);
+            if (buffer.isRetransmitted(acked)) {
+                rto.retransmissionAcked(elapsed);
+            } else {
+                rto.sample(elapsed);
+            }
+
+            dupAcks = 0;
+            receiverLimit = limit;
+            slideWindow(newBase);
+
+            if (buffer.getPolicy() == SendBuffer.Policy.BLOCK && !buffer.isFull()) {
+                getSimulator().resumeApplication();
             }
 
             //unless there are no packets in transit, restart the timer
             if (base != nextSeqNum) {
-                startTimer(TIMER_LENGTH);
+                startTimer(rto.get());
+            }
+        } else if (newBase == base && limit > receiverLimit) {
+            //the receiver's application has read some data, so there is more room
+            receiverLimit = limit;
+            sendWindow();
+        } else {
+            getSimulator().getMetrics().duplicateAck();
+
+            //only the first time the threshold is reached - the resent window brings more duplicates - and not when
+            // the duplicates answer window probes
+            if (newBase == base && base < highestSent && base > recover && base <= receiverLimit
+                    && ++dupAcks == dupAckThreshold) {
+                fastRetransmit();
             }
         }
+
+        if (base <= recover) {
+            sendHoles();
+        }
     }
 
     /**
      * Callback function which is invoked when the timer expires. This means that there has been a timeout in waiting
-     * for a response from the receiver, so all packets in the window are sent again.
+     * for a response from the receiver, so the window shrinks and all packets in it are sent again. If instead the
+     * receiver has no room for the base, the base is sent on its own to probe whether it has room yet, and the
+     * congestion window is left alone.
      */
     @Override
     public void timerInterrupt() {
-        //restart the timer and resend ALL packets in the window
-        startTimer(TIMER_LENGTH);
-        for (int i = base; i < nextSeqNum && i < base + WINDOW_SIZE; ++i) {
-            udtSend(buffer[index(i)]);
+        if (base > receiverLimit) {
+            getSimulator().getMetrics().windowProbe();
+            rto.backoff();
+            startTimer(rto.get());
+            send(base);
+            return;
         }
+
+        //back off, shrink the window, restart the timer and resend ALL packets in the window
+        getSimulator().getMetrics().stalled(getSimulator().getTime() - buffer.getSendTime(base));
+        recover = highestSent - 1;
+        holesSent = highestSent;
+        rto.backoff();
+        cc.timeout();
+        windowChanged();
+        startTimer(rto.get());
+        nextToSend = base;
+        sendWindow();
     }
 
     /**
-     * Finds the index in the buffer given a sequence number.
+     * Moves the window along to a new base, growing the congestion window, and sends the buffered packets which enter
+     * the window straight away, rather than leaving them for the timer to send with the rest of the window, so that the
+     * window stays full while acknowledgements arrive.
+     *
+     * @param newBase the sequence number of the oldest packet which is still unacknowledged
+     */
+    private void slideWindow(int newBase) {
+        cc.acked(newBase - base);
+        windowChanged();
+        base = newBase;
+        buffer.release(base);
+        nextToSend = Math.max(nextToSend, base);
+        sendWindow();
+    }
+
+    /**
+     * Sends the window again after duplicate acknowledgements, restarting the timer but without backing it off. With
+     * selective acknowledgements, only the holes are sent again.
+     */
+    private void fastRetransmit() {
+        getSimulator().getMetrics().fastRetransmit();
+        getSimulator().getMetrics().stalled(getSimulator().getTime() - buffer.getSendTime(base));
+        recover = highestSent - 1;
+        cc.fastRetransmit();
+        windowChanged();
+        stopTimer();
+        startTimer(rto.get());
+
+        if (highestSacked > base) {
+            holesSent = base;
+            sendHoles();
+        } else {
+            nextToSend = base;
+            sendWindow();
+        }
+    }
+
+    /**
+     * Records the packets the receiver has selectively acknowledged.
+     *
+     * @param sack pairs of the first and one past the last sequence number of each block, or null
+     */
+    private void sacked(int[] sack) {
+        if (sack == null) {
+            return;
+        }
+        for (int i = 0; i + 1 < sack.length; i += 2) {
+            int end = Math.min(sack[i + 1], highestSent);
+            for (int seq = Math.max(sack[i], base); seq < end; seq++) {
+                buffer.sack(seq);
+            }
+            highestSacked = Math.max(highestSacked, end);
+        }
+    }
+
+    /**
+     * Sends again the packets below the highest one selectively acknowledged which the receiver does not have, and
+     * which have not been sent again since recovery started.
+     */
+    private void sendHoles() {
+        for (int seq = Math.max(base, holesSent); seq < highestSacked; seq++) {
+            if (!buffer.isSacked(seq)) {
+                send(seq);
+            }
+        }
+        holesSent = Math.max(holesSent, highestSacked);
+    }
+
+    /**
+     * Sends buffered packets until the window is full, the receiver has no more room or there are none left. Packets
+     * the receiver has selectively acknowledged are skipped.
+     */
+    private void sendWindow() {
+        int window = (int) cc.getWindow();
+        while (nextToSend < nextSeqNum && nextToSend < base + window && nextToSend <= receiverLimit) {
+            if (!buffer.isSacked(nextToSend)) {
+                send(nextToSend);
+            }
+            ++nextToSend;
+        }
+    }
+
+    /**
+     * Sends a buffered packet, recording when it was sent.
      *
      * @param seq the sequence number of the packet
-     * @return the sequence number's index in the buffer
      */
-    private int index(int seq) {
-        //perform POSITIVE modulo arithmetic in case a negative number could be passed - e.g.
-        // when calling #index(someSeq - 1)
-        return (seq % buffer.length + buffer.length) % buffer.length;
+    private void send(int seq) {
+        boolean retransmission = seq < highestSent;
+        udtSend(buffer.get(seq));
+        buffer.sent(seq, getSimulator().getTime(), retransmission);
+
+        if (retransmission) {
+            getSimulator().getMetrics().retransmission();
+        } else {
+            highestSent = seq + 1;
+        }
+    }
+
+    /**
+     * Records the congestion window in the metrics, unless it is fixed.
+     */
+    private void windowChanged() {
+        if (!(cc instanceof FixedWindow)) {
+            getSimulator().getMetrics().window(getSimulator().getTime(), cc.getWindow());
+        }
     }
 
     /**
-     * Creates a new packet and computes the checksum.
+     * Fills in a packet from the buffer and computes the checksum.
      *
+     * @param packet the packet to fill in
      * @param seq the sequence number of the packet
-     * @param payload the payload of the packet
-     * @return a packet instance, with checksum calculated
+     * @param message the message to copy into the payload of the packet
      */
-    private Packet makePacket(int seq, String payload) {
-        int checksum = Checksum.compute(seq, 0, payload);
-        return new Packet(seq, 0, checksum, payload);
+    private void makePacket(Packet packet, int seq, Message message) {
+        packet.setSeqnum(seq);
+        packet.setAcknum(0);
+        packet.setPayload(message.getBytes(), message.getLength());
+        packet.setChecksum(getChecksum().compute(seq, 0, packet.getWindow(), message.getBytes(), message.getLength()));
     }
 
 }
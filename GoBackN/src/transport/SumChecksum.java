@@ -0,0 +1,16 @@
+package transport;
+
+/**
+ * The original checksum, as computed by {@link Checksum}: the complement of the plain sum of the sequence number, the
+ * acknowledgement number, the window, the payload bytes and the selective acknowledgement edges. It is cheap, and
+ * catches any change to a single field, but not changes which cancel out - bytes swapped within the payload, or a bit
+ * set in one field and the same bit cleared in another.
+ */
+public class SumChecksum implements ChecksumAlgorithm {
+
+    @Override
+    public int compute(int seq, int ack, int window, byte[] data, int length, int[] sack) {
+        return Checksum.compute(seq, ack, window, data, length, sack);
+    }
+
+}
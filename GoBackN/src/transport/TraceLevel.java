@@ -0,0 +1,28 @@
+package transport;
+
+/**
+ * The amount of detail written by a {@link Tracer}. Each level includes everything written at the levels before it.
+ */
+public enum TraceLevel {
+
+    /**
+     * Nothing is written.
+     */
+    OFF,
+
+    /**
+     * Only a summary at the end of the run, messages the sender drops, and internal errors.
+     */
+    SUMMARY,
+
+    /**
+     * Every executed event, timer operation and delivered message.
+     */
+    EVENT,
+
+    /**
+     * Everything, including the fate of every packet passed to the network.
+     */
+    PACKET
+
+}
@@ -0,0 +1,221 @@
+package transport;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Records every event executed by the simulator to a compact binary file, which can be read back with
+ * {@link TraceReader} without running the simulation again.
+ * <p>
+ * The file starts with the {@link #MAGIC} number and the format {@link #VERSION}, followed by a sequence of records,
+ * each starting with a one-byte tag:
+ * <ul>
+ * <li>{@link #EVENT}: time (double), event type ordinal (byte), entity (int), whether the event has a packet (byte),
+ * then the packet's sequence number, acknowledgement number, checksum and payload id (four ints, zero if there is no
+ * packet).</li>
+ * <li>{@link #PAYLOAD}: payload id (int), length in bytes (int) and the UTF-8 bytes of the payload. Each distinct
+ * payload is written once, before the first event which refers to it.</li>
+ * </ul>
+ * Records are written into a ring of direct buffers. Full buffers are written to the file by a background thread
+ * through a {@link FileChannel}, while the simulation carries on filling the next buffer.
+ */
+public class TraceRecorder {
+
+    public static final int MAGIC = 0x4A524454;    // "JRDT"
+    public static final int VERSION = 1;
+
+    public static final byte EVENT = 0;
+    public static final byte PAYLOAD = 1;
+
+    /**
+     * The size of an event record in bytes, including the tag.
+     */
+    public static final int EVENT_SIZE = 1 + 8 + 1 + 4 + 1 + 4 * 4;
+
+    /**
+     * The payload id of an event without a packet, or of a packet with a null payload.
+     */
+    public static final int NO_PAYLOAD = -1;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int BUFFER_COUNT = 4;
+
+    private final FileChannel channel;
+    private final BlockingQueue<ByteBuffer> free;
+    private final BlockingQueue<ByteBuffer> full;
+    private final Thread writer;
+
+    // the ids given to each payload written so far
+    private final Map<String, Integer> payloads;
+
+    private ByteBuffer buffer;
+    private volatile IOException failure;
+
+    /**
+     * Creates the trace file, replacing any existing file, and starts the writer thread.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be created
+     */
+    public TraceRecorder(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+
+        free = new ArrayBlockingQueue<>(BUFFER_COUNT);
+        full = new ArrayBlockingQueue<>(BUFFER_COUNT);
+        for (int i = 1; i < BUFFER_COUNT; i++) {
+            free.add(ByteBuffer.allocateDirect(BUFFER_SIZE));
+        }
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        payloads = new HashMap<>();
+
+        buffer.putInt(MAGIC).putInt(VERSION);
+
+        writer = new Thread(this::drain, "TraceRecorder");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Appends an event to the trace.
+     *
+     * @param e the event being executed
+     */
+    public void record(Event e) {
+        record(e.getTime(), e.getType(), e.getEntity(), e.getPacket());
+    }
+
+    /**
+     * Appends an event to the trace, given its fields.
+     *
+     * @param time the time of the event
+     * @param type the type of event
+     * @param entity the entity at which the event is executed
+     * @param p the packet involved, or null
+     */
+    public void record(double time, EventType type, int entity, Packet p) {
+        int payload = p == null ? NO_PAYLOAD : payloadId(p.getPayload());
+
+        reserve(EVENT_SIZE);
+        buffer.put(EVENT)
+                .putDouble(time)
+                .put((byte) type.ordinal())
+                .putInt(entity);
+
+        if (p == null) {
+            buffer.put((byte) 0).putInt(0).putInt(0).putInt(0).putInt(NO_PAYLOAD);
+        } else {
+            buffer.put((byte) 1).putInt(p.getSeqnum()).putInt(p.getAcknum()).putInt(p.getChecksum()).putInt(payload);
+        }
+    }
+
+    /**
+     * Writes out all recorded events, stops the writer thread and closes the file.
+     *
+     * @throws IOException if any part of the trace could not be written
+     */
+    public void close() throws IOException {
+        hand(buffer);
+        buffer = null;
+        //an empty buffer tells the writer thread to stop
+        hand(ByteBuffer.allocate(0));
+
+        try {
+            writer.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        channel.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Finds the id of a payload, writing a payload record first if it has not been seen before.
+     */
+    private int payloadId(String payload) {
+        if (payload == null) {
+            return NO_PAYLOAD;
+        }
+
+        Integer id = payloads.get(payload);
+        if (id != null) {
+            return id;
+        }
+
+        id = payloads.size();
+        payloads.put(payload, id);
+
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        if (1 + 4 + 4 + bytes.length > BUFFER_SIZE) {
+            throw new IllegalArgumentException("payload too long to record: " + bytes.length + " bytes");
+        }
+        reserve(1 + 4 + 4 + bytes.length);
+        buffer.put(PAYLOAD).putInt(id).putInt(bytes.length).put(bytes);
+        return id;
+    }
+
+    /**
+     * Makes sure the current buffer has space for a record, moving on to the next buffer in the ring if not.
+     */
+    private void reserve(int size) {
+        if (buffer.remaining() >= size) {
+            return;
+        }
+
+        hand(buffer);
+        try {
+            buffer = free.take();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for a trace buffer", ex);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Passes a filled buffer to the writer thread.
+     */
+    private void hand(ByteBuffer filled) {
+        filled.flip();
+        try {
+            full.put(filled);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while handing over a trace buffer", ex);
+        }
+    }
+
+    /**
+     * The body of the writer thread - writes each full buffer to the file and returns it to the free list.
+     */
+    private void drain() {
+        try {
+            ByteBuffer next;
+            while ((next = full.take()).capacity() > 0) {
+                try {
+                    while (failure == null && next.hasRemaining()) {
+                        channel.write(next);
+                    }
+                } catch (IOException ex) {
+                    //remember the failure for close(), but keep recycling buffers so the simulation can finish
+                    failure = ex;
+                }
+                free.put(next);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
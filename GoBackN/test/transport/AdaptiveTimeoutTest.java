@@ -0,0 +1,75 @@
+package transport;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests the round trip time estimator of the adaptive retransmission timeout.
+ */
+public class AdaptiveTimeoutTest {
+
+    private static final double DELTA = 1e-9;
+
+    /**
+     * Before the first sample, the initial timeout is used.
+     */
+    @Test
+    public void startsWithTheInitialTimeout() {
+        assertEquals(50.0, new AdaptiveTimeout(50.0).get(), DELTA);
+    }
+
+    /**
+     * The first sample sets the smoothed round trip time to the sample and the deviation to half of it, and later
+     * samples move them by a gain of 1/8 and 1/4, with the timeout four deviations above the smoothed time.
+     */
+    @Test
+    public void smoothsTheRoundTripTimeAndItsDeviation() {
+        AdaptiveTimeout rto = new AdaptiveTimeout(50.0);
+
+        //srtt 10, rttvar 5
+        rto.sample(10.0);
+        assertEquals(10.0 + 4 * 5.0, rto.get(), DELTA);
+
+        //rttvar 3/4 * 5 + 1/4 * |10 - 20| = 6.25, srtt 7/8 * 10 + 1/8 * 20 = 11.25
+        rto.sample(20.0);
+        assertEquals(11.25 + 4 * 6.25, rto.get(), DELTA);
+    }
+
+    /**
+     * Each timeout doubles the timeout, up to 60 times the initial timeout.
+     */
+    @Test
+    public void backsOffUpToTheLimit() {
+        AdaptiveTimeout rto = new AdaptiveTimeout(50.0);
+        rto.backoff();
+        assertEquals(100.0, rto.get(), DELTA);
+        rto.backoff();
+        assertEquals(200.0, rto.get(), DELTA);
+
+        for (int i = 0; i < 10; i++) {
+            rto.backoff();
+        }
+        assertEquals(3000.0, rto.get(), DELTA);
+    }
+
+    /**
+     * The acknowledgement of a retransmitted packet neither changes the estimate nor undoes the backing off; the next
+     * sample from a packet sent only once does both.
+     */
+    @Test
+    public void ignoresRetransmittedPacketsFollowingKarn() {
+        AdaptiveTimeout rto = new AdaptiveTimeout(50.0);
+        rto.sample(10.0);
+        rto.backoff();
+        rto.backoff();
+
+        rto.retransmissionAcked(1000.0);
+        assertEquals(4 * 30.0, rto.get(), DELTA);
+
+        //had the ignored time been a sample, the deviation would be far larger - rttvar 3/4 * 5 = 3.75, srtt 10
+        rto.sample(10.0);
+        assertEquals(10.0 + 4 * 3.75, rto.get(), DELTA);
+    }
+
+}
@@ -0,0 +1,33 @@
+package transport;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests that every checksum algorithm covers the fields of a packet.
+ */
+public class ChecksumAlgorithmTest {
+
+    private static final String[] TYPES = {"sum", "internet", "crc32c", "adler32"};
+
+    /**
+     * A sender trusts the window an acknowledgement advertises, so a corrupted window must be detected like any
+     * other corrupted field.
+     */
+    @Test
+    public void detectsACorruptedWindow() {
+        for (String type : TYPES) {
+            ChecksumAlgorithm algorithm = ChecksumAlgorithm.create(type);
+            Packet packet = new Packet(0, 41, 0);
+            packet.setWindow(8);
+            packet.setChecksum(algorithm.compute(0, 41, 8));
+            assertFalse(type, algorithm.corrupt(packet));
+
+            packet.setWindow(8 ^ (1 << 20));
+            assertTrue(type, algorithm.corrupt(packet));
+        }
+    }
+
+}
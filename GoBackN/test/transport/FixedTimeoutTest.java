@@ -0,0 +1,54 @@
+package transport;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests the backing off of the fixed retransmission timeout.
+ */
+public class FixedTimeoutTest {
+
+    private static final double DELTA = 1e-9;
+
+    /**
+     * Each timeout doubles the timeout, up to the limit, whatever the round trip times.
+     */
+    @Test
+    public void backsOffUpToTheLimit() {
+        FixedTimeout rto = new FixedTimeout(50.0, 4.0);
+        rto.backoff();
+        assertEquals(100.0, rto.get(), DELTA);
+        rto.backoff();
+        assertEquals(200.0, rto.get(), DELTA);
+        rto.backoff();
+        assertEquals(200.0, rto.get(), DELTA);
+    }
+
+    /**
+     * Any acknowledgement of new data sets the timeout back to its length, even for a retransmitted packet, and the
+     * round trip time is ignored.
+     */
+    @Test
+    public void returnsToItsLengthOnAnAcknowledgement() {
+        FixedTimeout rto = new FixedTimeout(50.0, 4.0);
+        rto.backoff();
+        rto.sample(10.0);
+        assertEquals(50.0, rto.get(), DELTA);
+
+        rto.backoff();
+        rto.retransmissionAcked(1000.0);
+        assertEquals(50.0, rto.get(), DELTA);
+    }
+
+    /**
+     * A limit of 1 keeps the timeout fixed.
+     */
+    @Test
+    public void neverBacksOffWithALimitOfOne() {
+        FixedTimeout rto = new FixedTimeout(50.0, 1.0);
+        rto.backoff();
+        assertEquals(50.0, rto.get(), DELTA);
+    }
+
+}
@@ -0,0 +1,65 @@
+package transport;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests complete runs of the simulator where the hosts share the channels.
+ */
+public class NetworkSimulatorTest {
+
+    /**
+     * Several flows together offer the shared channel more than it carries. Its queue of packets in flight is bounded,
+     * so the senders see drops and back off rather than resending into a queue which never drains, and the run ends
+     * soon after the last message is generated, with every flow getting messages through.
+     */
+    @Test
+    public void severalFlowsFinish() {
+        for (int flows = 2; flows <= 4; flows += 2) {
+            for (long seed = 1; seed <= 3; seed++) {
+                NetworkSimulator simulator = new NetworkSimulator();
+                simulator.setTracer(new PrintStreamTracer(System.out, TraceLevel.OFF));
+                simulator.setOption("flows", Integer.toString(flows));
+                simulator.initSimulator(1000, 0.1, 0.0, 20.0, seed);
+                simulator.runSimulator();
+
+                String run = flows + " flows, seed " + seed;
+                Metrics metrics = simulator.getMetrics();
+                assertTrue(run + ": time " + simulator.getTime(), simulator.getTime() < 2 * 1000 * 20.0);
+                assertTrue(run + ": packets sent " + metrics.getPacketsSent(),
+                        metrics.getPacketsSent() < 4 * metrics.getMessagesGenerated());
+                for (int flow = 0; flow < flows; flow++) {
+                    assertTrue(run + ": flow " + flow, metrics.getMessagesDelivered(flow) > 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Duplex hosts send their data and acknowledgements on the same channel, so with two flows each channel carries
+     * four streams of packets. Whatever the timer, the run finishes and the events pending at once stay few: before
+     * the shared channel was bounded, the copies sent by expired timers piled up on it until the heap ran out.
+     */
+    @Test
+    public void duplexFlowsFinishWithFewEventsPending() {
+        for (String rto : new String[] {"fixed", "adaptive"}) {
+            for (long seed = 1; seed <= 3; seed++) {
+                NetworkSimulator simulator = new NetworkSimulator();
+                simulator.setTracer(new PrintStreamTracer(System.out, TraceLevel.OFF));
+                simulator.setOption("duplex", "true");
+                simulator.setOption("flows", "2");
+                simulator.setOption("rto", rto);
+                simulator.initSimulator(200, 0.1, 0.0, 10.0, seed);
+                simulator.runSimulator();
+
+                String run = rto + ", seed " + seed;
+                assertTrue(run + ": event store " + simulator.getEvents().capacity(),
+                        simulator.getEvents().capacity() <= 256);
+                assertTrue(run + ": delivered " + simulator.getMetrics().getMessagesDelivered(),
+                        simulator.getMetrics().getMessagesDelivered() > 0);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+package transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests the Go-Back-N sender through complete runs of the simulator.
+ */
+public class SenderTest {
+
+    /**
+     * Packets buffered while the window is full are sent as soon as an acknowledgement makes room for them. With a
+     * window of 2 and messages arriving about as fast as the channel carries them, the buffer holds dozens of packets;
+     * if they were only sent when the timer expired, the sender would time out and send the window again.
+     */
+    @Test
+    public void sendsBufferedPacketsAsTheyEnterTheWindow() {
+        for (long seed = 1; seed <= 5; seed++) {
+            NetworkSimulator simulator = new NetworkSimulator();
+            simulator.setTracer(new PrintStreamTracer(System.out, TraceLevel.OFF));
+            simulator.setOption("window", "2");
+            simulator.initSimulator(200, 0.0, 0.0, 10.0, seed);
+            simulator.runSimulator();
+
+            Metrics metrics = simulator.getMetrics();
+            assertEquals("delivered, seed " + seed, 200, metrics.getMessagesDelivered());
+            assertEquals("timeouts, seed " + seed, 0, metrics.getTimeouts());
+            assertEquals("retransmissions, seed " + seed, 0, metrics.getRetransmissions());
+        }
+    }
+
+    /**
+     * A full window takes the channel longer to carry than the fixed timer, so with random losses the timer must back
+     * off; otherwise every timeout sends the window again before the last copy arrived, the copies queue up behind each
+     * other, and tens of thousands of packets are sent while most messages are dropped.
+     */
+    @Test
+    public void fixedTimerDeliversEverythingOverALossyChannel() {
+        for (long seed = 1; seed <= 5; seed++) {
+            Metrics metrics = runLossy("fixed", seed);
+            assertEquals("delivered, seed " + seed, 1000, metrics.getMessagesDelivered());
+            assertTrue("packets sent, seed " + seed + ": " + metrics.getPacketsSent(), metrics.getPacketsSent() < 4000);
+        }
+    }
+
+    /**
+     * The adaptive timer backs off as well, and is not restarted by acknowledgements of retransmitted packets, so it
+     * does not flood a lossy channel either.
+     */
+    @Test
+    public void adaptiveTimerDoesNotFloodALossyChannel() {
+        for (long seed = 1; seed <= 5; seed++) {
+            Metrics metrics = runLossy("adaptive", seed);
+            assertTrue("delivered, seed " + seed, metrics.getMessagesDelivered() > 0);
+            assertTrue("packets sent, seed " + seed + ": " + metrics.getPacketsSent(), metrics.getPacketsSent() < 2000);
+        }
+    }
+
+    /**
+     * Sends 1000 messages over a channel which loses one packet in ten.
+     *
+     * @param rto the retransmission timeout option
+     * @param seed the random seed
+     * @return the metrics of the run
+     */
+    private static Metrics runLossy(String rto, long seed) {
+        NetworkSimulator simulator = new NetworkSimulator();
+        simulator.setTracer(new PrintStreamTracer(System.out, TraceLevel.OFF));
+        simulator.setOption("rto", rto);
+        simulator.initSimulator(1000, 0.1, 0.0, 20.0, seed);
+        simulator.runSimulator();
+        return simulator.getMetrics();
+    }
+
+}
@@ -0,0 +1,136 @@
+package transport;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A tracer for the verbose trace levels, which collects lines into large blocks and hands each full block to a
+ * background thread for writing. The simulation thread only appends to a buffer, and waits only when the writer falls
+ * a whole queue of blocks behind.
+ */
+public class AsyncTracer implements Tracer {
+
+    /**
+     * The number of characters collected before a block is handed to the writer thread.
+     */
+    private static final int BLOCK_SIZE = 1 << 16;
+
+    /**
+     * The number of full blocks which may wait for the writer thread.
+     */
+    private static final int QUEUE_SIZE = 16;
+
+    /**
+     * Queued to tell the writer thread that there are no more blocks.
+     */
+    private static final String END = new String();
+
+    private final TraceLevel level;
+    private final Writer out;
+    private final BlockingQueue<String> queue;
+    private final Thread writer;
+
+    private StringBuilder block;
+    private boolean closed;
+
+    /**
+     * Creates a tracer and starts its writer thread.
+     *
+     * @param out where to write the trace - closed when the tracer is closed
+     * @param level the most detailed level to write
+     */
+    public AsyncTracer(Writer out, TraceLevel level) {
+        this.level = level;
+        this.out = out;
+        this.queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+        this.block = new StringBuilder(BLOCK_SIZE);
+        this.closed = false;
+
+        writer = new Thread(this::drain, "AsyncTracer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public TraceLevel getLevel() {
+        return level;
+    }
+
+    @Override
+    public void trace(String line) {
+        if (closed) {
+            return;
+        }
+
+        block.append(line).append(System.lineSeparator());
+        if (block.length() >= BLOCK_SIZE) {
+            hand(block.toString());
+            block.setLength(0);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (block.length() > 0) {
+            hand(block.toString());
+        }
+        hand(END);
+
+        try {
+            writer.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Passes a block to the writer thread, waiting for space in the queue if necessary.
+     */
+    private void hand(String text) {
+        try {
+            queue.put(text);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The body of the writer thread - writes blocks until the end marker is found, then closes the output.
+     */
+    private void drain() {
+        boolean failed = false;
+        try {
+            String text;
+            while ((text = queue.take()) != END) {
+                if (failed) {
+                    //keep taking blocks so the simulation is never left waiting for queue space
+                    continue;
+                }
+                try {
+                    out.write(text);
+                } catch (IOException ex) {
+                    Logger.getLogger(AsyncTracer.class.getName()).log(Level.WARNING, "trace output stopped", ex);
+                    failed = true;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                out.close();
+            } catch (IOException ex) {
+                Logger.getLogger(AsyncTracer.class.getName()).log(Level.WARNING, "failed to close trace output", ex);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,41 @@
+package transport;
+
+/**
+ * The original channel of the simulator: each packet is lost, and otherwise corrupted, independently of the others,
+ * and arrives after a random delay measured from the arrival of the packet before it, so that packets cannot overtake
+ * each other. The channel has no bandwidth limit, so any number of packets can be in flight, unless the channel is
+ * shared (see {@link NoisyChannel#inFlightQueue(String)}).
+ */
+public class BernoulliChannel extends NoisyChannel {
+
+    private double lastArrivalTime;     // the arrival time of the last packet scheduled on this channel
+    private final DropTailQueue queue;  // the packets in flight, or null if there is no limit
+
+    public BernoulliChannel(NetworkSimulator simulator, String direction) {
+        super(simulator, direction);
+        lastArrivalTime = 0.0;
+        queue = inFlightQueue(direction);
+    }
+
+    @Override
+    public double transmit(Packet packet, double now) {
+        if (full(queue, now)) {
+            return DROPPED;
+        }
+
+        // Simulate losses by doing nothing
+        if (lose(getLossProb())) {
+            return LOST;
+        }
+
+        corrupt(packet);
+
+        // Since the medium cannot reorder, the packet arrives some time after the last packet sent on this channel -
+        // or after now, once that has been delivered. Lost packets are never scheduled, so they do not hold up later
+        // packets
+        lastArrivalTime = delayFrom(Math.max(lastArrivalTime, now));
+        inFlight(queue, lastArrivalTime);
+        return lastArrivalTime;
+    }
+
+}
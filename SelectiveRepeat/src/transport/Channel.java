@@ -0,0 +1,81 @@
+package transport;
+
+/**
+ * A one-way link carrying packets from the senders to the receivers or back, which decides whether each packet
+ * arrives, in what state and when. The medium cannot reorder packets, so a packet must not arrive before any packet
+ * sent earlier on the same channel. Where the packet goes is up to the simulator's routing table: when several flows
+ * are simulated, they all share the channel in each direction, which is then their bottleneck.
+ * <p>
+ * The channel in each direction is chosen with the simulator option "channel", or "channel.ab" and "channel.ba" for
+ * one direction only, and configured with options "channel.&lt;name&gt;" or "channel.ab.&lt;name&gt;" (see
+ * {@link NetworkSimulator#getChannelOption(String, String, double)}). Any of them can also reorder and duplicate
+ * packets, see {@link ReorderingChannel}.
+ */
+public interface Channel {
+
+    /**
+     * The result of {@link #transmit(Packet, double)} for a packet lost on the way.
+     */
+    double LOST = -1.0;
+
+    /**
+     * The result of {@link #transmit(Packet, double)} for a packet dropped because the queue into the link was full.
+     */
+    double DROPPED = -2.0;
+
+    /**
+     * Carries a packet sent now. The channel may corrupt the packet in place, in which case it marks it as corrupted.
+     *
+     * @param packet the network's copy of the packet
+     * @param now the current simulation time
+     * @return the time the packet arrives at the destination, no earlier than that of any packet sent before it, or
+     *         {@link #LOST} or {@link #DROPPED} if it never arrives
+     */
+    double transmit(Packet packet, double now);
+
+    /**
+     * Decides whether a packet which has just been transmitted arrives a second time. Channels which do not duplicate
+     * packets never do.
+     *
+     * @param arrivalTime the time the packet arrives, from {@link #transmit(Packet, double)}
+     * @return the time the duplicate arrives, or {@link #LOST} if there is none
+     */
+    default double duplicate(double arrivalTime) {
+        return LOST;
+    }
+
+    /**
+     * Creates the channel for one direction, reading its type and settings from the simulator options.
+     *
+     * @param simulator the simulation the channel belongs to
+     * @param direction "ab" for the channel from the senders to the receivers, or "ba" for the channel back
+     * @return a new channel, of type "bernoulli" (the default) for a {@link BernoulliChannel}, "gilbert" for a
+     *         {@link GilbertElliottChannel} or "link" for a {@link LinkChannel}, wrapped in a
+     *         {@link ReorderingChannel} if the "reorder" or "duplicate" setting is not zero
+     * @throws IllegalArgumentException if the type is not recognised
+     */
+    static Channel create(NetworkSimulator simulator, String direction) {
+        String type = simulator.getOption("channel." + direction, simulator.getOption("channel", "bernoulli"));
+        Channel channel;
+        switch (type) {
+            case "bernoulli":
+                channel = new BernoulliChannel(simulator, direction);
+                break;
+            case "gilbert":
+                channel = new GilbertElliottChannel(simulator, direction);
+                break;
+            case "link":
+                channel = new LinkChannel(simulator, direction);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown channel type: " + type);
+        }
+
+        if (simulator.getChannelOption(direction, "reorder", 0.0) > 0.0
+                || simulator.getChannelOption(direction, "duplicate", 0.0) > 0.0) {
+            channel = new ReorderingChannel(channel, simulator, direction);
+        }
+        return channel;
+    }
+
+}
@@ -0,0 +1,87 @@
+package transport;
+
+/**
+ * Computes the checksum a host puts in a packet, over its sequence number, acknowledgement number, advertised window,
+ * payload and selective acknowledgement blocks. The algorithm is chosen with the simulator option "checksum", and
+ * shared by both hosts through {@link NetworkSimulator#getChecksum()}.
+ * <p>
+ * Implementations work straight on the payload bytes and do not allocate, as a checksum is computed for every packet
+ * sent and checked for every packet received.
+ */
+public interface ChecksumAlgorithm {
+
+    /**
+     * Calculates the checksum of a packet's fields.
+     *
+     * @param seq the sequence number of the packet
+     * @param ack the acknowledgement number of the packet
+     * @param window the receive window advertised by the packet
+     * @param data the payload of the packet, or null if it has none
+     * @param length the number of bytes of the payload in use
+     * @param sack the selective acknowledgement blocks of the packet, or null if it has none
+     * @return the checksum of the packet
+     */
+    int compute(int seq, int ack, int window, byte[] data, int length, int[] sack);
+
+    /**
+     * Calculates the checksum for a given sequence number, acknowledgement number and window, for a packet with no
+     * payload.
+     *
+     * @param seq the sequence number of the packet
+     * @param ack the acknowledgement number of the packet
+     * @param window the receive window advertised by the packet
+     * @return the checksum of the packet
+     */
+    default int compute(int seq, int ack, int window) {
+        return compute(seq, ack, window, null, 0, null);
+    }
+
+    /**
+     * Calculates the checksum for a given sequence number, acknowledgement number, window and payload.
+     *
+     * @param seq the sequence number of the packet
+     * @param ack the acknowledgement number of the packet
+     * @param window the receive window advertised by the packet
+     * @param data the payload of the packet
+     * @param length the number of bytes of the payload in use
+     * @return the checksum of the packet
+     */
+    default int compute(int seq, int ack, int window, byte[] data, int length) {
+        return compute(seq, ack, window, data, length, null);
+    }
+
+    /**
+     * Checks if a packet is corrupted by comparing the packet contents to the checksum.
+     *
+     * @param packet the packet to check
+     * @return true if the packet is corrupt, otherwise false
+     */
+    default boolean corrupt(Packet packet) {
+        return packet.getChecksum() != compute(packet.getSeqnum(), packet.getAcknum(), packet.getWindow(),
+                packet.getPayloadBytes(), packet.getPayloadLength(), packet.getSack());
+    }
+
+    /**
+     * Creates a checksum algorithm of the given type.
+     *
+     * @param type "sum" for a {@link SumChecksum}, "internet" for an {@link InternetChecksum}, "crc32c" for a
+     *             {@link Crc32cChecksum} or "adler32" for an {@link Adler32Checksum}
+     * @return a new checksum algorithm
+     * @throws IllegalArgumentException if the type is not recognised
+     */
+    static ChecksumAlgorithm create(String type) {
+        switch (type) {
+            case "sum":
+                return new SumChecksum();
+            case "internet":
+                return new InternetChecksum();
+            case "crc32c":
+                return new Crc32cChecksum();
+            case "adler32":
+                return new Adler32Checksum();
+            default:
+                throw new IllegalArgumentException("unknown checksum type: " + type);
+        }
+    }
+
+}
@@ -0,0 +1,52 @@
+package transport;
+
+/**
+ * The packets queued on a channel, as the times at which they leave it, in order of sending. The queue holds a limited
+ * number of packets; once it is full, further packets are dropped (tail-drop) until the first of them has left.
+ */
+public class DropTailQueue {
+
+    // the times at which the packets in the queue leave, as a ring in order of sending
+    private final double[] departures;
+    private int head;
+    private int count;
+
+    /**
+     * @param capacity the most packets the queue holds
+     * @throws IllegalArgumentException if the queue cannot hold a packet
+     */
+    public DropTailQueue(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("queue must hold at least one packet: " + capacity);
+        }
+        departures = new double[capacity];
+        head = 0;
+        count = 0;
+    }
+
+    /**
+     * Takes the packets which have left by now off the queue, and checks whether another packet fits.
+     *
+     * @param now the current simulation time
+     * @return true if there is room for a packet sent now, false if it must be dropped
+     */
+    public boolean hasRoom(double now) {
+        while (count > 0 && departures[head] <= now) {
+            head = (head + 1) % departures.length;
+            count--;
+        }
+        return count < departures.length;
+    }
+
+    /**
+     * Adds a packet to the queue, which must have room for it.
+     *
+     * @param departure the time the packet leaves, no earlier than that of any packet already queued
+     * @return the number of packets queued, including this one
+     */
+    public int add(double departure) {
+        departures[(head + count) % departures.length] = departure;
+        return ++count;
+    }
+
+}
@@ -0,0 +1,47 @@
+package transport;
+
+/**
+ * This class represents a "network event" in the network simulator, as a read-only copy of an event in an
+ * {@link EventStore} (see {@link EventStore#get(int)}), or of one read back from a trace. The simulator itself keeps
+ * its events in the store and does not create these.
+ */
+public class Event {
+
+    private final double time;      // the time the event is scheduled for
+    private final EventType type;   // the type of event (see NetworkSimulator.java)
+    private final int entity;       // the entity at which the event will be executed (sender or received)
+    private final Packet packet;    // the packet involved in this simulated event (can be null)
+
+    public Event(double t, EventType ty, int ent) {
+        this(t, ty, ent, null);
+    }
+
+    public Event(double t, EventType ty, int ent, Packet p) {
+        time = t;
+        type = ty;
+        entity = ent;
+        packet = p;
+    }
+
+    public double getTime() {
+        return time;
+    }
+
+    public EventType getType() {
+        return type;
+    }
+
+    public int getEntity() {
+        return entity;
+    }
+
+    public Packet getPacket() {
+        return packet;
+    }
+
+    @Override
+    public String toString() {
+        return ("time: " + time + "  type: " + type + "  entity: " + entity + "packet: " + packet);
+    }
+
+}
@@ -0,0 +1,44 @@
+package transport;
+
+/**
+ * A list of simulated events scheduled for execution. The events themselves are kept in an {@link EventStore}, and the
+ * list orders their indices in the store.
+ */
+public interface EventList {
+
+    /**
+     * Schedules an event for execution.
+     *
+     * @param e the index of the event in the store
+     */
+    void add(int e);
+
+    /**
+     * remove from the list of events the event that is scheduled for execution the soonest. Events scheduled for the
+     * same time are removed in the order in which they were stored. Cancelled events are returned like any other; it is
+     * up to the caller to discard them.
+     *
+     * @return the index of the event in the store, or -1 if the list is empty
+     */
+    int removeNext();
+
+    /**
+     * Creates an empty event list of the given type.
+     *
+     * @param type either "heap" for a {@link HeapEventList} or "calendar" for a {@link CalendarEventList}
+     * @param store the store holding the events which will be added
+     * @return a new, empty event list
+     * @throws IllegalArgumentException if the type is not recognised
+     */
+    static EventList create(String type, EventStore store) {
+        switch (type) {
+            case "heap":
+                return new HeapEventList(store);
+            case "calendar":
+                return new CalendarEventList(store);
+            default:
+                throw new IllegalArgumentException("unknown event list type: " + type);
+        }
+    }
+
+}
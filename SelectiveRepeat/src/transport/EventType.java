@@ -0,0 +1,5 @@
+package transport;
+
+public enum EventType {
+    TIMERINTERRUPT, FROMAPP, FROMNETWORK, TOAPP;
+}
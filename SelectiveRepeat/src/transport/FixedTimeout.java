@@ -0,0 +1,48 @@
+package transport;
+
+/**
+ * A retransmission timeout of a fixed length, ignoring round trip times. Each timeout doubles the timeout, up to a
+ * limit, and the next acknowledgement of new data - whether or not the packet was retransmitted - sets it back to its
+ * fixed length. Without backing off, a timeout shorter than the time the channel takes to carry a full window sends
+ * the window again before the last copy has arrived, and the copies queue up behind each other faster than they drain.
+ */
+public class FixedTimeout implements RetransmissionTimeout {
+
+    private final double length;
+
+    private final double maxTimeout;
+
+    // the current timeout, including any backing off since the last acknowledgement
+    private double timeout;
+
+    /**
+     * @param length the length of the timeout when it has not been backed off
+     * @param maxBackoff the largest timeout as a multiple of the length, or 1 to never back off
+     */
+    public FixedTimeout(double length, double maxBackoff) {
+        this.length = length;
+        this.maxTimeout = length * maxBackoff;
+        this.timeout = length;
+    }
+
+    @Override
+    public double get() {
+        return timeout;
+    }
+
+    @Override
+    public void sample(double rtt) {
+        timeout = length;
+    }
+
+    @Override
+    public void retransmissionAcked(double elapsed) {
+        timeout = length;
+    }
+
+    @Override
+    public void backoff() {
+        timeout = Math.min(timeout * 2.0, maxTimeout);
+    }
+
+}
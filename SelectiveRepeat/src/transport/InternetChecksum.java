@@ -0,0 +1,39 @@
+package transport;
+
+/**
+ * The Internet checksum (RFC 1071) used by IP, UDP and TCP: the complement of the one's complement sum of the packet
+ * taken as 16-bit words. The sequence and acknowledgement numbers, the window and the selective acknowledgement edges
+ * are two words each, and the payload is read as big-endian pairs of bytes, padded with a zero byte if its length is
+ * odd.
+ * <p>
+ * The end-around carry makes every bit position count, unlike {@link SumChecksum}, but it still misses 16-bit words
+ * swapped with each other and pairs of errors which cancel out in the same bit position.
+ */
+public class InternetChecksum implements ChecksumAlgorithm {
+
+    @Override
+    public int compute(int seq, int ack, int window, byte[] data, int length, int[] sack) {
+        long sum = (seq >>> 16) + (seq & 0xFFFF) + (ack >>> 16) + (ack & 0xFFFF) + (window >>> 16) + (window & 0xFFFF);
+
+        int i = 0;
+        for (; i + 1 < length; i += 2) {
+            sum += ((data[i] & 0xFF) << 8) | (data[i + 1] & 0xFF);
+        }
+        if (i < length) {
+            sum += (data[i] & 0xFF) << 8;
+        }
+
+        if (sack != null) {
+            for (int edge : sack) {
+                sum += (edge >>> 16) + (edge & 0xFFFF);
+            }
+        }
+
+        //fold the carries back in until the sum fits in 16 bits
+        while ((sum >>> 16) != 0) {
+            sum = (sum & 0xFFFF) + (sum >>> 16);
+        }
+        return (int) (~sum & 0xFFFF);
+    }
+
+}
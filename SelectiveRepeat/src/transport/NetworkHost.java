@@ -0,0 +1,232 @@
+package transport;
+
+import java.nio.charset.StandardCharsets;
+
+public class NetworkHost {
+
+    public static final int MAXDATASIZE = 20;   // This constant controls the maximum size of the buffer in a Message and in a Packet
+
+    private final int entity;                   // can be A or B; i.e. the sender or the receiver (or A + i or B + i in flow i)
+
+    private final int index;                    // the host's index in the simulator's routing table, or -1 if it has none
+
+    private final NetworkSimulator simulator;   // the simulation this host takes part in
+
+    private int timer = -1;                     // the index of the pending timer event, or -1 if the timer is not running
+
+    private DuplexHost duplex;                  // the full-duplex host this host is half of, which sends its packets, or null
+
+    // Default versions of methods to implement. 
+    public void init() {
+        throw new UnsupportedOperationException("Init method called for entity " + entity + " but not implemented.");
+    }
+    
+    public void output(Message message) {
+        throw new UnsupportedOperationException("Output method called for entity " + entity + " but not implemented.");
+    }
+
+    // The packet belongs to the simulator and is reused once this method returns, so copy anything needed later
+    public void input(Packet packet) {
+        throw new UnsupportedOperationException("Input method called for entity " + entity + " but not implemented.");
+    }
+
+    public void timerInterrupt() {
+        throw new UnsupportedOperationException("TimerInterupt method called for entity " + entity + " but not implemented.");
+    }
+
+    // Called when the receiving application has read a delivered message, freeing space in the receive buffer
+    public void applicationRead() {
+    }
+
+    // initialise NetworkHost to either A or B - the sender or the receiver - in the given simulation
+    public NetworkHost(int entityName, NetworkSimulator simulator) {
+        this.entity = entityName;
+        this.index = NetworkSimulator.hostIndex(entityName);
+        this.simulator = simulator;
+    }
+
+    // The simulation this host takes part in, for access to the current time and the simulation parameters
+    public NetworkSimulator getSimulator() {
+        return simulator;
+    }
+
+    // The checksum algorithm chosen for the simulation, which both hosts must use to compute and check checksums
+    public ChecksumAlgorithm getChecksum() {
+        return simulator.getChecksum();
+    }
+
+    // Start the timer for this NetworkHost (A or B)
+    // Only a single timer is supported for each NetworkHost
+    // Attempting to start a second timer will leave the running timer unchanged
+    public void startTimer(double increment) {
+        Tracer tracer = simulator.getTracer();
+        if (tracer.isEnabled(TraceLevel.EVENT)) {
+            tracer.trace("startTimer: starting timer at " + simulator.getTime());
+        }
+
+        if (timer >= 0) {
+            if (tracer.isEnabled(TraceLevel.EVENT)) {
+                tracer.trace("startTimer: Warning: Attempting to start a timer that is already running");
+            }
+        } else {
+            timer = simulator.schedule(simulator.getTime() + increment, EventType.TIMERINTERRUPT, index,
+                    EventStore.NO_PACKET);
+        }
+    }
+    
+    // Stop the timer for this NetworkHost (A or B)
+    // The timer event stays in the EventList, but is cancelled so that the simulator skips it
+    public void stopTimer() {
+        Tracer tracer = simulator.getTracer();
+        if (tracer.isEnabled(TraceLevel.EVENT)) {
+            tracer.trace("stopTimer: stopping timer at " + simulator.getTime());
+        }
+
+        if (timer < 0) {
+            if (tracer.isEnabled(TraceLevel.EVENT)) {
+                tracer.trace("stopTimer: Warning: Unable to cancel your timer, which is not set.");
+            }
+        } else {
+            simulator.getEvents().cancel(timer);
+            timer = -1;
+        }
+    }
+
+    // Called by the simulator when this host's timer event, the one with the given index, is executed
+    void timerExpired(int event) {
+        simulator.getMetrics().timeout();
+        timer = -1;
+        timerInterrupt();
+    }
+
+    // The host's index in the simulator's routing table
+    int getIndex() {
+        return index;
+    }
+
+    // Make this host half of a full-duplex host, which sends its packets for it
+    void setDuplex(DuplexHost duplex) {
+        this.duplex = duplex;
+    }
+
+    protected final void udtSend(Packet p) {
+        if (duplex != null) {
+            // the full-duplex host may piggyback an acknowledgement on the packet, or hold back an acknowledgement
+            duplex.send(this, p);
+        } else {
+            transmit(p);
+        }
+    }
+
+    // Send a packet into the network, which is what udtSend() does unless this host is half of a full-duplex host
+    final void transmit(Packet p) {
+        int destination;
+        double arrivalTime;
+        
+        // Use a copy of the supplied packet at this method may corrupt its data.
+        // We want to keep the original copy for retransmission purposes
+        // The copy comes from the simulator's pool, and goes back to it once it is lost or has been received
+        PacketPool pool = simulator.getPacketPool();
+        Packet packet = pool.copy(p);
+
+        Tracer tracer = simulator.getTracer();
+        if (tracer.isEnabled(TraceLevel.PACKET)) {
+            tracer.trace("udtSend: " + packet);
+        }
+
+        // Set destination to be the 'other side' of the network; B if we are A or vice versa, as the routing table says
+        Channel channel = simulator.getLink(index);
+        if (channel == null) {
+            if (tracer.isEnabled(TraceLevel.SUMMARY)) {
+                tracer.trace("udtSend: Warning: invalid packet sender");
+            }
+            pool.release(packet);
+            return;
+        }
+        destination = simulator.getRoute(index);
+        simulator.getMetrics().packetSent();
+
+        // Let the channel decide whether the packet arrives, whether it is corrupted and when it arrives
+        arrivalTime = channel.transmit(packet, simulator.getTime());
+
+        if (arrivalTime == Channel.DROPPED) {
+            if (tracer.isEnabled(TraceLevel.PACKET)) {
+                tracer.trace("udtSend: queue full, packet dropped");
+            }
+            simulator.getMetrics().queueDrop();
+            pool.release(packet);
+            return;
+        }
+
+        // Simulate losses by doing nothing
+        if (arrivalTime == Channel.LOST) {
+            if (tracer.isEnabled(TraceLevel.PACKET)) {
+                tracer.trace("udtSend: simulating packet being lost");
+            }
+            simulator.getMetrics().packetLost();
+            pool.release(packet);
+            return;
+        }
+
+        if (packet.isCorrupted()) {
+            if (tracer.isEnabled(TraceLevel.PACKET)) {
+                tracer.trace("udtSend: packet being corrupted");
+            }
+            simulator.getMetrics().packetCorrupted();
+        }
+
+        // Finally, create and schedule this event
+        if (tracer.isEnabled(TraceLevel.PACKET)) {
+            tracer.trace("udtSend: Scheduling arrival on other side");
+        }
+        
+        simulator.schedule(arrivalTime, EventType.FROMNETWORK, destination, packet.getIndex());
+
+        // The channel may deliver the packet twice - the duplicate is a copy of the network's copy, corruption and all
+        double duplicateTime = channel.duplicate(arrivalTime);
+        if (duplicateTime >= 0.0) {
+            if (tracer.isEnabled(TraceLevel.PACKET)) {
+                tracer.trace("udtSend: packet duplicated");
+            }
+            simulator.getMetrics().packetDuplicated();
+            Packet duplicate = pool.copy(packet);
+            duplicate.setCorrupted(packet.isCorrupted());
+            simulator.schedule(duplicateTime, EventType.FROMNETWORK, destination, duplicate.getIndex());
+        }
+    }
+
+    // Report that a message from the application layer was not accepted, and will never be sent
+    protected final void dropMessage(Message message) {
+        simulator.getMetrics().messageDropped();
+        Tracer tracer = simulator.getTracer();
+        if (tracer.isEnabled(TraceLevel.SUMMARY)) {
+            tracer.trace("dropMessage: Warning: dropped message: " + message);
+        }
+    }
+
+    // Report that a message from the application layer cannot be accepted yet. The simulator holds on to it, stops
+    // generating messages, and offers it to output() again once the host calls NetworkSimulator.resumeApplication()
+    protected final void refuseMessage(Message message) {
+        simulator.refused(message);
+    }
+
+    // Deliver a payload held as bytes, one per character, without decoding it unless it is traced
+    public void deliverData(byte[] data, int length) {
+        simulator.getMetrics().messageDelivered(simulator.getRoute(index), simulator.getTime());
+        simulator.delivered();
+        Tracer tracer = simulator.getTracer();
+        if (tracer.isEnabled(TraceLevel.EVENT)) {
+            tracer.trace("deliverData: data received at " + entity + ":"
+                    + new String(data, 0, length, StandardCharsets.ISO_8859_1));
+        }
+    }
+
+    public void deliverData(String dataSent) {
+        simulator.getMetrics().messageDelivered(simulator.getRoute(index), simulator.getTime());
+        simulator.delivered();
+        Tracer tracer = simulator.getTracer();
+        if (tracer.isEnabled(TraceLevel.EVENT)) {
+            tracer.trace("deliverData: data received at " + entity + ":" + dataSent);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package transport;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Represents a Packet sent in the (simulated) network.
+ * The network consists only of Sender A and Receiver B
+ * <p>
+ * The payload is held in a fixed-size byte array of {@link NetworkSimulator#MAXDATASIZE} bytes, one byte per character
+ * (ISO-8859-1), so that a packet can be filled in again and reused rather than allocated for every transmission.
+ */
+public class Packet {
+
+    private int seqnum;     // sequence number
+    private int acknum;     // acknowledgment number
+    private int checksum;   // checksum
+    private final byte[] payload = new byte[NetworkSimulator.MAXDATASIZE];  // packet payload
+    private int length;     // the number of bytes of the payload in use
+    private int window;     // receive window: how many packets after acknum the host sending this packet has room for
+    private int[] sack;     // selective acknowledgement blocks: pairs of first and one-past-last sequence numbers received
+                            // beyond acknum, or null
+    private final int index;    // the packet's index in the PacketPool which created it, or -1
+    private boolean corrupted;  // whether the network has corrupted this packet, which the hosts cannot see
+    private boolean piggybacked;    // whether a DuplexHost added an acknowledgement to this data packet
+
+    public Packet(Packet p) {
+        this();
+        copyFrom(p);
+    }
+
+    // An empty packet, to be filled in
+    Packet() {
+        index = -1;
+    }
+
+    // An empty packet, to be filled in by the PacketPool which gave it this index
+    Packet(int index) {
+        this.index = index;
+    }
+
+    Packet (int seq, int ack, int check) {
+        this();
+        seqnum = seq;
+        acknum = ack;
+        checksum = check;
+    }
+
+    Packet (int seq, int ack, int check, String pld) {
+        this();
+        seqnum = seq;
+        acknum = ack;
+        checksum = check;
+        setPayload(pld);
+    }
+
+    Packet (int seq, int ack, int check, byte[] data, int len) {
+        this();
+        seqnum = seq;
+        acknum = ack;
+        checksum = check;
+        setPayload(data, len);
+    }
+
+    // Make this packet an uncorrupted copy of another, apart from its index, reusing this packet's payload and SACK
+    // arrays
+    void copyFrom(Packet p) {
+        seqnum = p.seqnum;
+        acknum = p.acknum;
+        checksum = p.checksum;
+        System.arraycopy(p.payload, 0, payload, 0, p.length);
+        length = p.length;
+        window = p.window;
+        piggybacked = p.piggybacked;
+        corrupted = false;
+        if (p.sack == null) {
+            sack = null;
+        } else if (sack != null && sack.length == p.sack.length) {
+            System.arraycopy(p.sack, 0, sack, 0, sack.length);
+        } else {
+            sack = p.sack.clone();
+        }
+    }
+
+    public int getSeqnum() {
+        return seqnum;
+    }
+
+    public void setSeqnum(int seqnum) {
+        this.seqnum = seqnum;
+    }
+
+    public int getAcknum() {
+        return acknum;
+    }
+
+    public void setAcknum(int acknum) {
+        this.acknum = acknum;
+    }
+
+    public int getChecksum() {
+        return checksum;
+    }
+
+    public void setChecksum(int checksum) {
+        this.checksum = checksum;
+    }
+
+    // Decodes the payload into a new String; getPayloadBytes() reads it without allocating
+    public String getPayload() {
+        return new String(payload, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    // Stores a payload of at most MAXDATASIZE characters, each of which must fit in a byte; null is an empty payload
+    public void setPayload(String payload) {
+        if (payload == null) {
+            length = 0;
+            return;
+        }
+        if (payload.length() > this.payload.length) {
+            throw new IllegalArgumentException("payload longer than " + this.payload.length + " characters");
+        }
+        for (int i = 0; i < payload.length(); i++) {
+            this.payload[i] = (byte) payload.charAt(i);
+        }
+        length = payload.length();
+    }
+
+    // Copies a payload of at most MAXDATASIZE bytes
+    public void setPayload(byte[] data, int len) {
+        if (len > payload.length) {
+            throw new IllegalArgumentException("payload longer than " + payload.length + " bytes");
+        }
+        System.arraycopy(data, 0, payload, 0, len);
+        length = len;
+    }
+
+    // The payload itself, of which the first getPayloadLength() bytes are in use
+    public byte[] getPayloadBytes() {
+        return payload;
+    }
+
+    public int getPayloadLength() {
+        return length;
+    }
+
+    public void setPayloadLength(int length) {
+        this.length = length;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public void setWindow(int window) {
+        this.window = window;
+    }
+
+    // Whether the network corrupted the packet in transit, for measuring how many corruptions the checksum misses
+    boolean isCorrupted() {
+        return corrupted;
+    }
+
+    void setCorrupted(boolean corrupted) {
+        this.corrupted = corrupted;
+    }
+
+    // Whether the acknowledgement fields of a data packet are in use, which a DuplexHost sets when it piggybacks an
+    // acknowledgement on the packet. A packet without payload is an acknowledgement in any case
+    boolean isPiggybacked() {
+        return piggybacked;
+    }
+
+    void setPiggybacked(boolean piggybacked) {
+        this.piggybacked = piggybacked;
+    }
+
+    // The packet's index in the PacketPool which created it, or -1 if it was not created by a pool
+    int getIndex() {
+        return index;
+    }
+
+    public int[] getSack() {
+        return sack;
+    }
+
+    public void setSack(int[] sack) {
+        this.sack = sack;
+    }
+
+    @Override
+    public String toString() {
+        return ("seqnum: " + seqnum + "  acknum: " + acknum + "  checksum: " + checksum + "  payload: " + getPayload()
+                + (sack == null ? "" : "  sack: " + Arrays.toString(sack)) + (piggybacked ? "  piggybacked" : ""));
+    }
+
+}
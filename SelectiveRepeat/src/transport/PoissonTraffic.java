@@ -0,0 +1,19 @@
+package transport;
+
+/**
+ * An application whose messages arrive as a Poisson process: the times between them are independent and exponentially
+ * distributed, so that most are short but some are several times the average.
+ */
+public class PoissonTraffic extends GeneratedTraffic {
+
+    public PoissonTraffic(NetworkSimulator simulator) {
+        super(simulator);
+    }
+
+    @Override
+    public double nextArrival(double now) {
+        // 1 - nextDouble() is never 0, so the logarithm is finite
+        return now - getAvgMessageDelay() * Math.log(1.0 - getRand().nextDouble());
+    }
+
+}
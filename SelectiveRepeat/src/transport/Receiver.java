@@ -0,0 +1,107 @@
+package transport;
+
+/**
+ * A network host which receives data from a sender using a reliable selective-repeat transfer protocol. Packets which
+ * arrive out of order but within the window are buffered and acknowledged individually, and are delivered to the
+ * application layer once the packets before them have arrived.
+ *
+ * @author 153728
+ */
+public class Receiver extends NetworkHost {
+
+    /**
+     * The default size of the receive window. This can be changed with the simulator option "window", which must be
+     * the same for the sender.
+     */
+    private static final int WINDOW_SIZE = 8;
+
+    /**
+     * The size of the receive window.
+     */
+    private int windowSize;
+
+    /**
+     * The sequence number of the next packet to be delivered to the application layer. Initially 1.
+     */
+    private int rcvBase;
+
+    /**
+     * Copies of packets received ahead of the window start, indexed by sequence number, and whether each slot holds a
+     * packet which has been received. The copies are reused.
+     */
+    private Packet[] buffer;
+    private boolean[] received;
+
+    /**
+     * The acknowledgement packet, reused for every acknowledgement sent.
+     */
+    private Packet sendPacket;
+
+    /**
+     * {@inheritDoc}
+     */
+    public Receiver(int entityName, NetworkSimulator simulator) {
+        super(entityName, simulator);
+    }
+
+    @Override
+    public void init() {
+        rcvBase = 1;
+        windowSize = getSimulator().getIntOption("window", WINDOW_SIZE);
+        buffer = new Packet[windowSize];
+        received = new boolean[windowSize];
+        for (int i = 0; i < windowSize; i++) {
+            buffer[i] = new Packet(0, 0, 0);
+        }
+        sendPacket = new Packet(0, 0, getChecksum().compute(0, 0, 0));
+    }
+
+    @Override
+    public void input(Packet packet) {
+        if (getChecksum().corrupt(packet)) {
+            //nothing can be trusted in a corrupt packet, so let the sender's timer deal with it
+            return;
+        }
+
+        int seq = packet.getSeqnum();
+        if (seq >= rcvBase && seq < rcvBase + windowSize) {
+            //within the window - buffer it if not already received, then deliver as many as possible in order
+            if (!received[index(seq)]) {
+                buffer[index(seq)].copyFrom(packet);
+                received[index(seq)] = true;
+            }
+            while (received[index(rcvBase)]) {
+                Packet next = buffer[index(rcvBase)];
+                deliverData(next.getPayloadBytes(), next.getPayloadLength());
+                received[index(rcvBase)] = false;
+                ++rcvBase;
+            }
+            acknowledge(seq);
+        } else if (seq >= rcvBase - windowSize && seq < rcvBase) {
+            //already delivered, but the acknowledgement must have been lost - send it again
+            acknowledge(seq);
+        }
+    }
+
+    /**
+     * Sends an acknowledgement for a single packet.
+     *
+     * @param seq the sequence number of the packet
+     */
+    private void acknowledge(int seq) {
+        sendPacket.setAcknum(seq);
+        sendPacket.setChecksum(getChecksum().compute(0, seq, sendPacket.getWindow()));
+        udtSend(sendPacket);
+    }
+
+    /**
+     * Finds the index in the buffer given a sequence number.
+     *
+     * @param seq the sequence number of the packet
+     * @return the sequence number's index in the buffer
+     */
+    private int index(int seq) {
+        return seq % windowSize;
+    }
+
+}
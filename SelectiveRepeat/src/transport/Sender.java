@@ -0,0 +1,372 @@
+package transport;
+
+/**
+ * A network host which sends data to a receiver using a reliable selective-repeat transfer protocol. Each packet in the
+ * window is acknowledged individually and has its own logical timer, so after a timeout only the packets which are
+ * still unacknowledged are sent again.
+ * <p>
+ * The logical timers expire in the order in which they were started. They are kept in a queue ordered by deadline,
+ * and the host's single timer is always set for the deadline at the head of the queue. When the timeout is adaptive
+ * and shrinks, a new deadline is held back to the one before it so that the queue stays in order.
+ *
+ * @author 153728
+ */
+public class Sender extends NetworkHost {
+
+    /**
+     * The timeout used until the first round trip time has been measured, or always with the simulator option "rto"
+     * set to "fixed". This is longer than in Go-Back-N, where the single timer is restarted by every acknowledgement.
+     * Here each packet is timed from when it was sent, and the last packet of a full window queues behind the others
+     * on the channel, so a shorter timer expires for packets which are not lost.
+     */
+    private static final int TIMER_LENGTH = 100;
+
+    /**
+     * The largest the fixed timer is backed off to, as a multiple of its length. Without backing off, once the queue on
+     * the channel outgrew the timer, every spurious retransmission would add to the queue and the sender would never
+     * catch up. Backing off to 200 lets two full windows of about 80 time units each drain.
+     */
+    private static final int MAX_BACKOFF = 2;
+
+    /**
+     * The default number of consecutive packets allowed to be in transit at one time. This can be changed with the
+     * simulator option "window", which must be the same for the receiver.
+     */
+    private static final int WINDOW_SIZE = 8;
+
+    /**
+     * The number of packet buffer slots beyond the window, for buffering messages from the application layer. After
+     * these slots are filled, any further messages from the application layer are dropped, or refused until there is
+     * room if the simulator option "sendbuffer" is "block".
+     */
+    private static final int BUFFER_SLACK = 50;
+
+    /**
+     * Allows for the host's timer firing very slightly before a logical timer's deadline due to rounding.
+     */
+    private static final double TIME_EPSILON = 1e-9;
+
+    /**
+     * The number of consecutive packets allowed to be in transit at one time.
+     */
+    private int windowSize;
+
+    /**
+     * The sequence number of the oldest unacknowledged packet.
+     */
+    private int base;
+
+    /**
+     * The sequence number of the next packet to be sent through to the receiver.
+     */
+    private int nextSeqNum;
+
+    /**
+     * The packets which have been sent or are waiting to be sent, indexed by sequence number. The packet in each slot
+     * is filled in again for every sequence number which uses the slot.
+     */
+    private Packet[] buffer;
+
+    /**
+     * Whether each packet in the buffer has been acknowledged.
+     */
+    private boolean[] acked;
+
+    /**
+     * The deadline of the logical timer of each packet in the buffer.
+     */
+    private double[] deadline;
+
+    /**
+     * The time at which each packet in the buffer was last sent.
+     */
+    private double[] sendTime;
+
+    /**
+     * Whether each packet in the buffer has been sent more than once, in which case its round trip time is not
+     * measured.
+     */
+    private boolean[] retransmitted;
+
+    /**
+     * The length of the logical timers, fixed or estimated from round trip times depending on the "rto" option.
+     */
+    private RetransmissionTimeout rto;
+
+    /**
+     * Whether messages from the application layer are refused rather than dropped when the buffer is full.
+     */
+    private boolean block;
+
+    /**
+     * The queue of logical timers in order of deadline, as a ring of sequence numbers and deadlines. An entry is
+     * out of date if its packet has since been acknowledged or its timer restarted.
+     */
+    private int[] timerSeq;
+    private double[] timerDeadline;
+    private int timerHead;
+    private int timerCount;
+
+    /**
+     * Whether the host's timer is running, and if so the deadline it was set for.
+     */
+    private boolean timerRunning;
+    private double runningDeadline;
+
+    /**
+     * {@inheritDoc}
+     */
+    public Sender(int entityName, NetworkSimulator simulator) {
+        super(entityName, simulator);
+    }
+
+    /**
+     * Callback function which initialises the state of the sender. The initial sequence number is 1, and the window
+     * size is read from the "window" option, and what to do with messages when the buffer is full from the
+     * "sendbuffer" option: "drop" (the default) or "block". The timeout is read from "rto": "fixed" (the default) or
+     * "adaptive".
+     */
+    @Override
+    public void init() {
+        base = nextSeqNum = 1;
+        windowSize = getSimulator().getIntOption("window", WINDOW_SIZE);
+
+        int size = windowSize + BUFFER_SLACK + 1;
+        buffer = new Packet[size];
+        acked = new boolean[size];
+        deadline = new double[size];
+        sendTime = new double[size];
+        retransmitted = new boolean[size];
+        rto = RetransmissionTimeout.create(getSimulator().getOption("rto", "fixed"), TIMER_LENGTH, MAX_BACKOFF);
+
+        String policy = getSimulator().getOption("sendbuffer", "drop");
+        if (!policy.equals("drop") && !policy.equals("block")) {
+            throw new IllegalArgumentException("unknown send buffer policy: " + policy);
+        }
+        block = policy.equals("block");
+
+        timerSeq = new int[windowSize];
+        timerDeadline = new double[windowSize];
+        timerHead = 0;
+        timerCount = 0;
+        timerRunning = false;
+    }
+
+    /**
+     * Handles reliable transport of an application message through the network to a receiving host. The message is
+     * sent straight away if the window has room, and otherwise buffered. Once the buffer is full, messages are dropped
+     * or refused.
+     *
+     * @param message the message to send
+     */
+    @Override
+    public void output(Message message) {
+        //if the index of the next sequence number is directly below the window start, it means
+        // that we have run out of buffer space.
+        if (index(nextSeqNum) == index(base - 1)) {
+            if (block) {
+                refuseMessage(message);
+            } else {
+                dropMessage(message);
+            }
+            return;
+        }
+
+        int seq = nextSeqNum++;
+        if (buffer[index(seq)] == null) {
+            buffer[index(seq)] = new Packet(0, 0, 0);
+        }
+        makePacket(buffer[index(seq)], seq, message);
+        acked[index(seq)] = false;
+
+        if (seq < base + windowSize) {
+            send(seq, false);
+            armTimer();
+        }
+    }
+
+    /**
+     * Handles an acknowledgement from the receiver. The acknowledged packet is marked, and if it is the oldest packet
+     * in the window, the window slides along past every acknowledged packet, sending any buffered packets which enter
+     * the window.
+     *
+     * @param packet the received packet
+     */
+    @Override
+    public void input(Packet packet) {
+        if (getChecksum().corrupt(packet)) {
+            return;
+        }
+
+        int seq = packet.getAcknum();
+        if (seq < base || seq >= nextSeqNum || seq >= base + windowSize || acked[index(seq)]) {
+            //acknowledges a packet outside the window, or one already acknowledged
+            getSimulator().getMetrics().duplicateAck();
+            return;
+        }
+
+        acked[index(seq)] = true;
+        if (retransmitted[index(seq)]) {
+            rto.retransmissionAcked(getSimulator().getTime() - sendTime[index(seq)]);
+        } else {
+            rto.sample(getSimulator().getTime() - sendTime[index(seq)]);
+        }
+
+        //slide the window past the acknowledged packets at its start, sending packets as they enter the window
+        while (base < nextSeqNum && acked[index(base)]) {
+            int entering = base + windowSize;
+            ++base;
+            if (entering < nextSeqNum) {
+                send(entering, false);
+            }
+        }
+
+        //the window may have freed space in the buffer, so offer again any message that was refused
+        getSimulator().resumeApplication();
+
+        armTimer();
+    }
+
+    /**
+     * Callback function which is invoked when the host's timer expires. Every packet whose logical timer has expired
+     * is sent again, and its logical timer restarted. The timeout is backed off when the oldest unacknowledged packet
+     * times out, as with the single timer of TCP.
+     */
+    @Override
+    public void timerInterrupt() {
+        timerRunning = false;
+        double now = getSimulator().getTime();
+
+        while (timerCount > 0 && timerDeadline[timerHead] <= now + TIME_EPSILON) {
+            int seq = timerSeq[timerHead];
+            double due = timerDeadline[timerHead];
+            popTimer();
+
+            if (current(seq, due)) {
+                if (seq == base) {
+                    getSimulator().getMetrics().stalled(now - sendTime[index(seq)]);
+                    rto.backoff();
+                }
+                send(seq, true);
+                getSimulator().getMetrics().retransmission();
+            }
+        }
+
+        armTimer();
+    }
+
+    /**
+     * Sends a buffered packet and starts its logical timer.
+     *
+     * @param seq the sequence number of the packet
+     * @param retransmission whether the packet has been sent before
+     */
+    private void send(int seq, boolean retransmission) {
+        int i = index(seq);
+        udtSend(buffer[i]);
+        sendTime[i] = getSimulator().getTime();
+        retransmitted[i] = retransmission;
+
+        double due = getSimulator().getTime() + rto.get();
+        if (timerCount > 0) {
+            //never earlier than the last logical timer in the queue
+            due = Math.max(due, timerDeadline[(timerHead + timerCount - 1) % timerSeq.length]);
+        }
+        deadline[i] = due;
+        pushTimer(seq, due);
+    }
+
+    /**
+     * Checks if a logical timer entry still applies, i.e. its packet is unacknowledged and the timer has not been
+     * restarted since.
+     */
+    private boolean current(int seq, double due) {
+        int i = index(seq);
+        return seq >= base && seq < nextSeqNum && !acked[i] && deadline[i] == due;
+    }
+
+    /**
+     * Discards out of date logical timers from the head of the queue, then makes sure the host's timer is set for the
+     * earliest remaining deadline, or stopped if there is none.
+     */
+    private void armTimer() {
+        while (timerCount > 0 && !current(timerSeq[timerHead], timerDeadline[timerHead])) {
+            popTimer();
+        }
+
+        if (timerCount == 0) {
+            if (timerRunning) {
+                stopTimer();
+                timerRunning = false;
+            }
+            return;
+        }
+
+        double due = timerDeadline[timerHead];
+        if (timerRunning && runningDeadline == due) {
+            return;
+        }
+        if (timerRunning) {
+            stopTimer();
+        }
+        startTimer(due - getSimulator().getTime());
+        timerRunning = true;
+        runningDeadline = due;
+    }
+
+    /**
+     * Adds a logical timer to the back of the queue, growing the queue if necessary.
+     */
+    private void pushTimer(int seq, double due) {
+        if (timerCount == timerSeq.length) {
+            int[] seqs = new int[timerCount * 2];
+            double[] dues = new double[timerCount * 2];
+            for (int i = 0; i < timerCount; i++) {
+                seqs[i] = timerSeq[(timerHead + i) % timerCount];
+                dues[i] = timerDeadline[(timerHead + i) % timerCount];
+            }
+            timerSeq = seqs;
+            timerDeadline = dues;
+            timerHead = 0;
+        }
+
+        int tail = (timerHead + timerCount) % timerSeq.length;
+        timerSeq[tail] = seq;
+        timerDeadline[tail] = due;
+        ++timerCount;
+    }
+
+    /**
+     * Removes the logical timer at the head of the queue.
+     */
+    private void popTimer() {
+        timerHead = (timerHead + 1) % timerSeq.length;
+        --timerCount;
+    }
+
+    /**
+     * Finds the index in the buffer given a sequence number.
+     *
+     * @param seq the sequence number of the packet
+     * @return the sequence number's index in the buffer
+     */
+    private int index(int seq) {
+        //perform POSITIVE modulo arithmetic in case a negative number could be passed - e.g.
+        // when calling #index(someSeq - 1)
+        return (seq % buffer.length + buffer.length) % buffer.length;
+    }
+
+    /**
+     * Fills in a packet from the buffer and computes the checksum.
+     *
+     * @param packet the packet to fill in
+     * @param seq the sequence number of the packet
+     * @param message the message to copy into the payload of the packet
+     */
+    private void makePacket(Packet packet, int seq, Message message) {
+        packet.setSeqnum(seq);
+        packet.setPayload(message.getBytes(), message.getLength());
+        packet.setChecksum(getChecksum().compute(seq, 0, packet.getWindow(), message.getBytes(), message.getLength()));
+    }
+
+}
@@ -0,0 +1,211 @@
+package transport;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Runs the simulator for every point of a grid of parameters, spreading the runs over a pool of threads, and writes the
+ * {@link Metrics} of all runs as one CSV table.
+ * <p>
+ * The grid is read from a file with one parameter per line, in the form {@code name = value, value, ...}. A value may
+ * also be an inclusive integer range such as {@code 1..10}. Blank lines and lines starting with '#' are ignored. The
+ * parameters messages, loss, corrupt, delay and seed are the simulator parameters normally read by {@link Assignment},
+ * eventlist selects the event list implementation, and any other parameter is passed to the hosts as an option (for
+ * example, window for the Go-Back-N sender). The first parameter in the file varies slowest.
+ * <p>
+ * Runs are not traced. Each run has its own simulator and seed, and the rows are written in grid order, so the
+ * results are the same whatever number of threads is used.
+ */
+public class Sweep {
+
+    /**
+     * The simulator parameters used when the grid does not give a value.
+     */
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("messages", "1000");
+        DEFAULTS.put("loss", "0.0");
+        DEFAULTS.put("corrupt", "0.0");
+        DEFAULTS.put("delay", "10.0");
+        DEFAULTS.put("seed", "1");
+    }
+
+    private Sweep() {
+        throw new AssertionError("instantiating utility class");
+    }
+
+    public static void main(String[] argv) throws IOException, InterruptedException, ExecutionException {
+        if (argv.length < 1 || argv.length > 3) {
+            System.err.println("usage: Sweep <grid file> [threads] [output csv]");
+            System.exit(-1);
+        }
+
+        Map<String, List<String>> grid = readGrid(argv[0]);
+        int threads = argv.length > 1 ? Integer.parseInt(argv[1]) : Runtime.getRuntime().availableProcessors();
+
+        List<Map<String, String>> points = expand(grid);
+        List<Map<String, Number>> results = run(points, threads);
+
+        PrintWriter out = new PrintWriter(argv.length > 2 ? new FileWriter(argv[2]) : new OutputStreamWriter(System.out));
+        write(out, new ArrayList<>(grid.keySet()), points, results);
+        out.close();
+    }
+
+    /**
+     * Reads a grid specification file.
+     *
+     * @param file the name of the file
+     * @return the values of each parameter, in the order the parameters appear in the file
+     * @throws IOException if the file cannot be read
+     */
+    public static Map<String, List<String>> readGrid(String file) throws IOException {
+        Map<String, List<String>> grid = new LinkedHashMap<>();
+
+        try (BufferedReader in = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                int eq = line.indexOf('=');
+                if (eq < 0) {
+                    throw new IllegalArgumentException("expected name = values: " + line);
+                }
+
+                List<String> values = new ArrayList<>();
+                for (String value : line.substring(eq + 1).split(",")) {
+                    value = value.trim();
+                    int range = value.indexOf("..");
+                    if (range < 0) {
+                        values.add(value);
+                    } else {
+                        //expand an inclusive integer range
+                        long from = Long.parseLong(value.substring(0, range).trim());
+                        long to = Long.parseLong(value.substring(range + 2).trim());
+                        for (long v = from; v <= to; v++) {
+                            values.add(Long.toString(v));
+                        }
+                    }
+                }
+                grid.put(line.substring(0, eq).trim(), values);
+            }
+        }
+
+        return grid;
+    }
+
+    /**
+     * Lists every combination of parameter values in a grid.
+     *
+     * @param grid the values of each parameter
+     * @return the grid points, with the first parameter varying slowest
+     */
+    public static List<Map<String, String>> expand(Map<String, List<String>> grid) {
+        List<Map<String, String>> points = new ArrayList<>();
+        points.add(new LinkedHashMap<>());
+
+        for (Map.Entry<String, List<String>> axis : grid.entrySet()) {
+            List<Map<String, String>> next = new ArrayList<>();
+            for (Map<String, String> point : points) {
+                for (String value : axis.getValue()) {
+                    Map<String, String> p = new LinkedHashMap<>(point);
+                    p.put(axis.getKey(), value);
+                    next.add(p);
+                }
+            }
+            points = next;
+        }
+
+        return points;
+    }
+
+    /**
+     * Runs one simulation per grid point on a fork-join pool.
+     *
+     * @param points the grid points
+     * @param threads the number of threads to use
+     * @return the results of each point, in the same order as the points
+     * @throws InterruptedException if interrupted while waiting for the runs to finish
+     * @throws ExecutionException if any run fails
+     */
+    public static List<Map<String, Number>> run(List<Map<String, String>> points, int threads)
+            throws InterruptedException, ExecutionException {
+        List<Map<String, Number>> results = new ArrayList<>(Collections.nCopies(points.size(), null));
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.submit(() -> IntStream.range(0, points.size()).parallel()
+                    .forEach(i -> results.set(i, run(points.get(i))))).get();
+        } finally {
+            pool.shutdown();
+        }
+
+        return results;
+    }
+
+    /**
+     * Runs a single simulation.
+     *
+     * @param point the parameters of the simulation
+     * @return the metrics of the run
+     */
+    public static Map<String, Number> run(Map<String, String> point) {
+        Map<String, String> params = new LinkedHashMap<>(DEFAULTS);
+        params.putAll(point);
+
+        NetworkSimulator simulator = new NetworkSimulator();
+        simulator.setTracer(new PrintStreamTracer(System.out, TraceLevel.OFF));
+        for (Map.Entry<String, String> param : params.entrySet()) {
+            if (param.getKey().equals("eventlist")) {
+                simulator.setEventListType(param.getValue());
+            } else if (!DEFAULTS.containsKey(param.getKey())) {
+                simulator.setOption(param.getKey(), param.getValue());
+            }
+        }
+
+        simulator.initSimulator(Integer.parseInt(params.get("messages")),
+                Double.parseDouble(params.get("loss")),
+                Double.parseDouble(params.get("corrupt")),
+                Double.parseDouble(params.get("delay")),
+                Long.parseLong(params.get("seed")));
+        simulator.runSimulator();
+
+        return simulator.getMetrics().toMap();
+    }
+
+    /**
+     * Writes the parameters and metrics of every run as CSV, one row per run.
+     */
+    private static void write(PrintWriter out, List<String> axes, List<Map<String, String>> points,
+            List<Map<String, Number>> results) {
+        List<String> header = new ArrayList<>(axes);
+        if (!results.isEmpty()) {
+            header.addAll(results.get(0).keySet());
+        }
+        out.println(String.join(",", header));
+
+        for (int i = 0; i < points.size(); i++) {
+            List<String> row = new ArrayList<>(points.get(i).values());
+            for (Number value : results.get(i).values()) {
+                row.add(value.toString());
+            }
+            out.println(String.join(",", row));
+        }
+    }
+
+}
@@ -0,0 +1,41 @@
+package transport;
+
+/**
+ * A destination for the simulator's trace output. Callers check {@link #isEnabled(TraceLevel)} before building a
+ * trace line, so that a disabled level costs no more than a comparison:
+ * <pre>
+ *     if (tracer.isEnabled(TraceLevel.PACKET)) {
+ *         tracer.trace("udtSend: " + packet);
+ *     }
+ * </pre>
+ */
+public interface Tracer {
+
+    /**
+     * @return the most detailed level this tracer writes
+     */
+    TraceLevel getLevel();
+
+    /**
+     * Checks if lines at the given level are written by this tracer.
+     *
+     * @param level the level of the line about to be traced
+     * @return true if the line should be built and passed to {@link #trace(String)}
+     */
+    default boolean isEnabled(TraceLevel level) {
+        return level.compareTo(getLevel()) <= 0 && level != TraceLevel.OFF;
+    }
+
+    /**
+     * Writes one line of trace output.
+     *
+     * @param line the line, without a line terminator
+     */
+    void trace(String line);
+
+    /**
+     * Writes out any buffered lines and releases the tracer's resources. Lines traced afterwards are discarded.
+     */
+    void close();
+
+}
@@ -0,0 +1,280 @@
+package transport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An event list implemented as a calendar queue (R. Brown, 1988). Events are hashed by scheduled time into an array
+ * of "day" buckets, each holding a short sorted list, and the queue walks through the days of the current "year" to
+ * find the next event. With a bucket width close to the average gap between events, adding and removing an event both
+ * take constant amortised time. The number of buckets doubles or halves as the queue grows and shrinks, and the bucket
+ * width is re-estimated from the events at the front of the queue each time this happens.
+ * <p>
+ * As with {@link HeapEventList}, events scheduled for the same time are removed in the order in which they were stored.
+ * The buckets are linked lists of event indices, linked through an array indexed by event alongside the
+ * {@link EventStore}.
+ */
+public class CalendarEventList implements EventList {
+
+    /**
+     * The smallest number of buckets the calendar will shrink to. Always a power of two.
+     */
+    private static final int MIN_BUCKETS = 16;
+
+    /**
+     * The maximum number of events sampled from the front of the queue to estimate a new bucket width.
+     */
+    private static final int WIDTH_SAMPLE = 25;
+
+    /**
+     * The bucket width used before any width estimate is available.
+     */
+    private static final double INITIAL_WIDTH = 1.0;
+
+    /**
+     * The end of a bucket's list.
+     */
+    private static final int NONE = -1;
+
+    // the store holding the events
+    private final EventStore store;
+
+    // the first event of each bucket of the calendar, each a linked list sorted by time and then insertion order
+    private int[] buckets;
+
+    // the event after each event in its bucket's list, indexed by event
+    private int[] next;
+
+    // one less than the number of buckets, used to wrap a bucket number onto the array
+    private int mask;
+
+    // the length of simulated time covered by each bucket
+    private double width;
+
+    // the number of events currently in the calendar
+    private int size;
+
+    // the bucket number (counted from time zero, not wrapped) that the search for the next event starts from
+    private long current;
+
+    public CalendarEventList(EventStore store) {
+        this.store = store;
+        next = new int[0];
+        size = 0;
+        current = 0;
+        rebuild(MIN_BUCKETS, INITIAL_WIDTH);
+    }
+
+    @Override
+    public void add(int e) {
+        if (e >= next.length) {
+            next = Arrays.copyOf(next, Math.max(e + 1, store.capacity()));
+        }
+        insert(e);
+        ++size;
+
+        if (size > 2 * buckets.length) {
+            resize(2 * buckets.length);
+        }
+    }
+
+    @Override
+    public int removeNext() {
+        if (size == 0) {
+            return NONE;
+        }
+
+        int first = removeFirst();
+
+        if (buckets.length > MIN_BUCKETS && size < buckets.length / 2) {
+            resize(buckets.length / 2);
+        }
+        return first;
+    }
+
+    /**
+     * Removes the soonest event from the calendar. Does not resize the calendar.
+     *
+     * @return the soonest event - the calendar must not be empty
+     */
+    private int removeFirst() {
+        //walk forward through one year of buckets, looking for an event which falls in the bucket's current day
+        for (int n = 0; n <= mask; n++) {
+            long day = current + n;
+            int i = (int) (day & mask);
+            int head = buckets[i];
+            if (head != NONE && bucketOf(store.getTime(head)) <= day) {
+                current = day;
+                unlink(i, NONE, head);
+                --size;
+                return head;
+            }
+        }
+
+        //nothing this year - the events are sparse, so find the soonest bucket head directly and jump to it
+        int best = -1;
+        for (int i = 0; i < buckets.length; i++) {
+            if (buckets[i] != NONE && (best < 0 || store.before(buckets[i], buckets[best]))) {
+                best = i;
+            }
+        }
+
+        int head = buckets[best];
+        current = bucketOf(store.getTime(head));
+        unlink(best, NONE, head);
+        --size;
+        return head;
+    }
+
+    /**
+     * Inserts an event into the sorted list of its bucket. Does not update the size of the calendar.
+     *
+     * @param e the event to insert
+     */
+    private void insert(int e) {
+        long day = bucketOf(store.getTime(e));
+        if (day < current) {
+            //an event scheduled in the past of the search position - start the next search from here instead
+            current = day;
+        }
+
+        int i = (int) (day & mask);
+        int prev = NONE;
+        int n = buckets[i];
+        while (n != NONE && store.before(n, e)) {
+            prev = n;
+            n = next[n];
+        }
+
+        next[e] = n;
+        if (prev == NONE) {
+            buckets[i] = e;
+        } else {
+            next[prev] = e;
+        }
+    }
+
+    /**
+     * Removes an event from a bucket's list.
+     *
+     * @param i the index of the bucket
+     * @param prev the event before the one to remove, or {@link #NONE} if it is the head of the bucket
+     * @param e the event to remove
+     */
+    private void unlink(int i, int prev, int e) {
+        if (prev == NONE) {
+            buckets[i] = next[e];
+        } else {
+            next[prev] = next[e];
+        }
+        next[e] = NONE;
+    }
+
+    /**
+     * Changes the number of buckets, estimating a new bucket width from the events at the front of the queue.
+     *
+     * @param count the new number of buckets - a power of two
+     */
+    private void resize(int count) {
+        rebuild(count, estimateWidth());
+    }
+
+    /**
+     * Estimates a good bucket width as three times the average gap between the soonest events, ignoring unusually
+     * large gaps. The sampled events are put back into the calendar unchanged.
+     *
+     * @return the estimated width, or the current width if there are too few events to estimate from
+     */
+    private double estimateWidth() {
+        int samples = Math.min(size, WIDTH_SAMPLE);
+        if (samples < 2) {
+            return width;
+        }
+
+        long savedCurrent = current;
+        int[] sample = new int[samples];
+        for (int i = 0; i < samples; i++) {
+            sample[i] = removeFirst();
+        }
+        for (int e : sample) {
+            insert(e);
+            ++size;
+        }
+        current = savedCurrent;
+
+        double first = store.getTime(sample[0]);
+        double last = store.getTime(sample[samples - 1]);
+        double average = (last - first) / (samples - 1);
+
+        //recompute the average, leaving out any gaps much larger than it
+        double total = 0.0;
+        int gaps = 0;
+        for (int i = 1; i < samples; i++) {
+            double gap = store.getTime(sample[i]) - store.getTime(sample[i - 1]);
+            if (gap <= 2.0 * average) {
+                total += gap;
+                ++gaps;
+            }
+        }
+
+        double estimate = gaps > 0 ? 3.0 * total / gaps : 0.0;
+        return estimate > 0.0 ? estimate : width;
+    }
+
+    /**
+     * Re-creates the calendar with the given number of buckets and width, moving all current events into it.
+     *
+     * @param count the number of buckets - a power of two
+     * @param newWidth the width of each bucket
+     */
+    private void rebuild(int count, double newWidth) {
+        int[] events = new int[size];
+        int moved = 0;
+        if (buckets != null) {
+            for (int bucket : buckets) {
+                for (int e = bucket; e != NONE; ) {
+                    int following = next[e];
+                    next[e] = NONE;
+                    events[moved++] = e;
+                    e = following;
+                }
+            }
+        }
+
+        //keep the search position at the same point in time under the new width
+        double now = current * width;
+
+        buckets = new int[count];
+        Arrays.fill(buckets, NONE);
+        mask = count - 1;
+        width = newWidth;
+        current = bucketOf(now);
+
+        for (int e : events) {
+            insert(e);
+        }
+    }
+
+    /**
+     * Finds the bucket number of a given time, counted from time zero.
+     *
+     * @param time the scheduled time
+     * @return the (unwrapped) bucket number
+     */
+    private long bucketOf(double time) {
+        return (long) (time / width);
+    }
+
+    @Override
+    public String toString() {
+        List<Event> events = new ArrayList<>(size);
+        for (int bucket : buckets) {
+            for (int e = bucket; e != NONE; e = next[e]) {
+                events.add(store.get(e));
+            }
+        }
+        return events.toString();
+    }
+
+}
@@ -0,0 +1,160 @@
+package transport;
+
+/**
+ * A network host which both sends and receives messages, for simulating application traffic in both directions. It
+ * runs the protocol's {@link Sender} and {@link Receiver} side by side, and passes each of them the packets meant for
+ * it: the receiver gets the packets with a payload, and the sender the packets with an acknowledgement.
+ * <p>
+ * The receiver's acknowledgements are piggybacked on the sender's data packets. Like TCP's delayed acknowledgements,
+ * an acknowledgement is held back for up to the time given by the simulator option "ackdelay" (default 5). If the
+ * sender sends a data packet meanwhile, the acknowledgement goes with it and the packet is marked as piggybacked;
+ * otherwise it is sent on its own when the delay is up, or as soon as the receiver has another one to send. With a
+ * delay of 0 the acknowledgement only waits until the host has handled the current event. Piggybacking can be turned
+ * off with the simulator option "piggyback", to measure what it saves.
+ * <p>
+ * The delay is timed with a timer event of the host's own, alongside the sender's timer. The receiver must not use a
+ * timer.
+ */
+public class DuplexHost extends NetworkHost {
+
+    private final Sender sender;        // sends this host's messages, and handles the acknowledgements of them
+    private final Receiver receiver;    // delivers the other host's messages, and acknowledges them
+    private final Packet ack;           // a copy of the receiver's acknowledgement, until it has been sent
+    private final Packet data;          // a copy of the sender's data packet with the acknowledgement added
+    private boolean ackPending;         // whether the acknowledgement is waiting for a data packet to go in
+    private boolean piggyback;          // whether acknowledgements are held back to go in data packets
+    private double ackDelay;            // the longest an acknowledgement is held back
+    private int ackTimer;               // the index of the event which ends the delay, or -1 if there is none
+
+    /**
+     * {@inheritDoc}
+     */
+    public DuplexHost(int entityName, NetworkSimulator simulator) {
+        super(entityName, simulator);
+        sender = new Sender(entityName, simulator);
+        receiver = new Receiver(entityName, simulator);
+        sender.setDuplex(this);
+        receiver.setDuplex(this);
+        ack = new Packet();
+        data = new Packet();
+    }
+
+    @Override
+    public void init() {
+        piggyback = Boolean.parseBoolean(getSimulator().getOption("piggyback", "true"));
+        ackDelay = getSimulator().getDoubleOption("ackdelay", 5.0);
+        ackPending = false;
+        ackTimer = -1;
+        sender.init();
+        receiver.init();
+    }
+
+    @Override
+    public void output(Message message) {
+        sender.output(message);
+        eventHandled();
+    }
+
+    /**
+     * Passes a packet from the other host to the receiver if it has a payload, and then to the sender if it carries an
+     * acknowledgement, so that the receiver's acknowledgement can go in anything the sender sends in reply.
+     *
+     * @param packet the received packet
+     */
+    @Override
+    public void input(Packet packet) {
+        boolean hasData = packet.getPayloadLength() > 0;
+        if (hasData) {
+            receiver.input(packet);
+        }
+        if (!hasData || packet.isPiggybacked()) {
+            sender.input(packet);
+        }
+        eventHandled();
+    }
+
+    @Override
+    public void applicationRead() {
+        receiver.applicationRead();
+        eventHandled();
+    }
+
+    /**
+     * Sends the acknowledgement being held back if its delay is up, or otherwise passes the sender its timer
+     * interrupt.
+     *
+     * @param event the index of the timer event
+     */
+    @Override
+    void timerExpired(int event) {
+        if (event == ackTimer) {
+            ackTimer = -1;
+            flush();
+        } else {
+            sender.timerExpired(event);
+            eventHandled();
+        }
+    }
+
+    /**
+     * Called through {@link NetworkHost#udtSend(Packet)} by the sender or the receiver.
+     *
+     * @param half the host sending the packet
+     * @param packet the packet, which still belongs to the host
+     */
+    void send(NetworkHost half, Packet packet) {
+        if (half == sender && ackPending) {
+            //add the acknowledgement to a copy of the data packet, whose checksum then has to cover both
+            data.copyFrom(packet);
+            data.setAcknum(ack.getAcknum());
+            data.setWindow(ack.getWindow());
+            data.setSack(ack.getSack());
+            data.setPiggybacked(true);
+            data.setChecksum(getChecksum().compute(data.getSeqnum(), data.getAcknum(), data.getWindow(),
+                    data.getPayloadBytes(), data.getPayloadLength(), data.getSack()));
+            ackPending = false;
+            stopAckTimer();
+            getSimulator().getMetrics().ackPiggybacked();
+            transmit(data);
+        } else if (half == receiver && piggyback) {
+            //an earlier acknowledgement which is still waiting goes first
+            flush();
+            ack.copyFrom(packet);
+            ackPending = true;
+            if (ackDelay > 0.0) {
+                ackTimer = getSimulator().schedule(getSimulator().getTime() + ackDelay, EventType.TIMERINTERRUPT,
+                        getIndex(), EventStore.NO_PACKET);
+            }
+        } else {
+            transmit(packet);
+        }
+    }
+
+    /**
+     * Sends the acknowledgement on its own if no data packet has taken it.
+     */
+    private void flush() {
+        if (ackPending) {
+            ackPending = false;
+            stopAckTimer();
+            transmit(ack);
+        }
+    }
+
+    /**
+     * Sends the acknowledgement once the current event has been handled, unless it is to be held back for longer.
+     */
+    private void eventHandled() {
+        if (ackDelay <= 0.0) {
+            flush();
+        }
+    }
+
+    private void stopAckTimer() {
+        if (ackTimer >= 0) {
+            getSimulator().getEvents().cancel(ackTimer);
+            ackTimer = -1;
+        }
+    }
+
+}
@@ -1,101 +1,44 @@
 package transport;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
- * A list of simulated events scheduled for execution
+ * A list of simulated events scheduled for execution. The events themselves are kept in an {@link EventStore}, and the
+ * list orders their indices in the store.
  */
-public class EventList {
-
-    // the list of events
-    private final List<Event> list;
-
-    public EventList() {
-        list = new ArrayList<>();
-    }
-
-    public boolean add(Event e) {
-        return list.add(e);
-    }
+public interface EventList {
 
     /**
-     * remove from the list of events the event that is scheduled for execution the soonest
+     * Schedules an event for execution.
      *
-     * @return an Event or null if the list is empty
+     * @param e the index of the event in the store
      */
-    public Event removeNext() {
-        if (list.isEmpty()) {
-            return null;
-        }
-
-        int index = 0;
-
-        double soonest = ((Event) list.get(index)).getTime();
-
-        for (int i = 0; i < list.size(); i++) {
-            if ((list.get(i)).getTime() < soonest) {
-                soonest = (list.get(i)).getTime();
-                index = i;
-            }
-        }
-
-        Event next = (Event) list.get(index);
-        list.remove(next);
-
-        return next;
-    }
+    void add(int e);
 
     /**
-     * Removes and returns the timerEvent event for the specified network entity (sender or receiver). 
-     * Each NetworkHost (A or B) can have up to one timerEvent pending (1 TIMERINTERRUPT Event in the list).
+     * remove from the list of events the event that is scheduled for execution the soonest. Events scheduled for the
+     * same time are removed in the order in which they were stored. Cancelled events are returned like any other; it is
+     * up to the caller to discard them.
      *
-     * @param entity
-     * @return
+     * @return the index of the event in the store, or -1 if the list is empty
      */
-    public Event removeTimer(int entity) {
-        int timerIndex = -1;
-        Event timerEvent = null;
-
-        for (int i = 0; i < list.size(); i++) {
-            if (((list.get(i)).getType() == EventType.TIMERINTERRUPT) && ((list.get(i)).getEntity() == entity)) {
-                timerIndex = i;
-                break;
-            }
-        }
-
-        if (timerIndex != -1) {
-            timerEvent = list.get(timerIndex);
-            list.remove(timerEvent);
-        }
-
-        return timerEvent;
-
-    }
+    int removeNext();
 
     /**
-     * Returns the scheduled time for the next packet arrival at the provided network entity.
-     * No reordering takes place, so I can safely remove the first FROMNETWORK Event in the list.
+     * Creates an empty event list of the given type.
      *
-     * @param entityTo
-     * @return
+     * @param type either "heap" for a {@link HeapEventList} or "calendar" for a {@link CalendarEventList}
+     * @param store the store holding the events which will be added
+     * @return a new, empty event list
+     * @throws IllegalArgumentException if the type is not recognised
      */
-    public double getLastPacketTime(int entityTo) {
-        double time = 0.0;
-        
-        for (Event ev : list) {
-            if ((ev).getType() == EventType.FROMNETWORK) {
-                if ((ev).getEntity() == entityTo) {
-                    time = (ev).getTime();
-                }
-            }
+    static EventList create(String type, EventStore store) {
+        switch (type) {
+            case "heap":
+                return new HeapEventList(store);
+            case "calendar":
+                return new CalendarEventList(store);
+            default:
+                throw new IllegalArgumentException("unknown event list type: " + type);
         }
-
-        return time;
     }
 
-    @Override
-    public String toString() {
-        return list.toString();
-    }
 }
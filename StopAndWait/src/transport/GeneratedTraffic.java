@@ -0,0 +1,42 @@
+package transport;
+
+import java.util.Random;
+
+/**
+ * The parts common to the traffic sources: the average time between messages entered for the simulation, and message
+ * lengths spread evenly between the options "traffic.minsize" and "traffic.maxsize", which both default to
+ * {@link NetworkSimulator#MAXDATASIZE}.
+ */
+public abstract class GeneratedTraffic implements TrafficSource {
+
+    private final Random rand;              // the simulator's random number generator
+    private final double avgMessageDelay;   // the average time between messages
+    private final int minSize;              // the shortest message
+    private final int maxSize;              // the longest message
+
+    protected GeneratedTraffic(NetworkSimulator simulator) {
+        rand = simulator.getRand();
+        avgMessageDelay = simulator.getAvgMessageDelay();
+        minSize = simulator.getIntOption("traffic.minsize", NetworkSimulator.MAXDATASIZE);
+        maxSize = simulator.getIntOption("traffic.maxsize", NetworkSimulator.MAXDATASIZE);
+        if (minSize < 1 || maxSize > NetworkSimulator.MAXDATASIZE || minSize > maxSize) {
+            throw new IllegalArgumentException("message sizes must be from 1 to " + NetworkSimulator.MAXDATASIZE
+                    + ": " + minSize + " to " + maxSize);
+        }
+    }
+
+    protected Random getRand() {
+        return rand;
+    }
+
+    protected double getAvgMessageDelay() {
+        return avgMessageDelay;
+    }
+
+    @Override
+    public int nextSize() {
+        // no random number is drawn for messages of a fixed size, so that runs with the default sizes are unchanged
+        return minSize == maxSize ? minSize : minSize + rand.nextInt(maxSize - minSize + 1);
+    }
+
+}
@@ -0,0 +1,51 @@
+package transport;
+
+/**
+ * A channel with bursts of loss, after the Gilbert-Elliott model. The channel is in a good or a bad state, and moves
+ * between them at random as each packet is sent: from good to bad with the probability of the option "goodtobad"
+ * (default 0.01), and back with that of "badtogood" (default 0.25), so that a bad spell lasts 4 packets on average. In
+ * the good state packets are lost with the simulation's loss probability, and in the bad state with that of "badloss"
+ * (default 1, every packet). Corruption, delay and the limit on packets in flight are as for a
+ * {@link BernoulliChannel}.
+ */
+public class GilbertElliottChannel extends NoisyChannel {
+
+    private final double goodToBad;     // the probability of moving to the bad state as a packet is sent in the good state
+    private final double badToGood;     // the probability of moving to the good state as a packet is sent in the bad state
+    private final double badLoss;       // the probability that a packet is lost in the bad state
+    private boolean bad;                // whether the channel is in the bad state
+    private double lastArrivalTime;     // the arrival time of the last packet scheduled on this channel
+    private final DropTailQueue queue;  // the packets in flight, or null if there is no limit
+
+    public GilbertElliottChannel(NetworkSimulator simulator, String direction) {
+        super(simulator, direction);
+        goodToBad = simulator.getChannelOption(direction, "goodtobad", 0.01);
+        badToGood = simulator.getChannelOption(direction, "badtogood", 0.25);
+        badLoss = simulator.getChannelOption(direction, "badloss", 1.0);
+        bad = false;
+        lastArrivalTime = 0.0;
+        queue = inFlightQueue(direction);
+    }
+
+    @Override
+    public double transmit(Packet packet, double now) {
+        if (full(queue, now)) {
+            return DROPPED;
+        }
+
+        double change = getSimulator().getRand().nextDouble();
+        if (bad ? change < badToGood : change < goodToBad) {
+            bad = !bad;
+        }
+
+        if (lose(bad ? badLoss : getLossProb())) {
+            return LOST;
+        }
+
+        corrupt(packet);
+        lastArrivalTime = delayFrom(Math.max(lastArrivalTime, now));
+        inFlight(queue, lastArrivalTime);
+        return lastArrivalTime;
+    }
+
+}
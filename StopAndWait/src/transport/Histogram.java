@@ -0,0 +1,155 @@
+package transport;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of non-negative values with a fixed relative precision, in the style of an HDR histogram. Each power of
+ * two is split into {@link #SUB_BUCKETS} equal buckets, so a value is known to within about 3% of itself whatever its
+ * magnitude. All the buckets are allocated up front, so recording a value never allocates.
+ */
+public class Histogram {
+
+    /**
+     * The number of buckets each power of two is divided into. Must be a power of two.
+     */
+    private static final int SUB_BUCKETS = 32;
+
+    private static final int SUB_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+
+    /**
+     * The smallest and largest binary exponents given their own buckets. Values below 2^MIN_EXPONENT are counted in the
+     * first bucket and values at or above 2^(MAX_EXPONENT + 1) in the last.
+     */
+    private static final int MIN_EXPONENT = -20;
+    private static final int MAX_EXPONENT = 40;
+
+    private final long[] counts;
+    private long count;
+    private double sum;
+    private double min;
+    private double max;
+
+    public Histogram() {
+        counts = new long[(MAX_EXPONENT - MIN_EXPONENT + 1) * SUB_BUCKETS];
+        reset();
+    }
+
+    /**
+     * Clears all recorded values.
+     */
+    public final void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0.0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * Records a value. Negative values are counted as zero.
+     *
+     * @param value the value to record
+     */
+    public void record(double value) {
+        if (value < 0.0) {
+            value = 0.0;
+        }
+
+        ++counts[bucketOf(value)];
+        ++count;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the total of all recorded values
+     */
+    public double getSum() {
+        return sum;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0.0 : sum / count;
+    }
+
+    public double getMin() {
+        return count == 0 ? 0.0 : min;
+    }
+
+    public double getMax() {
+        return count == 0 ? 0.0 : max;
+    }
+
+    /**
+     * Estimates a percentile of the recorded values, as the midpoint of the bucket which holds it.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the estimated value, or 0 if nothing has been recorded
+     */
+    public double getPercentile(double percentile) {
+        if (count == 0) {
+            return 0.0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                //clamp to the observed range, which is exact at either end
+                return Math.min(max, Math.max(min, (lowerBound(i) + lowerBound(i + 1)) / 2.0));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @return the number of buckets
+     */
+    public int getBucketCount() {
+        return counts.length;
+    }
+
+    /**
+     * @param i the index of a bucket
+     * @return the number of values recorded in the bucket
+     */
+    public long getBucket(int i) {
+        return counts[i];
+    }
+
+    /**
+     * @param i the index of a bucket
+     * @return the smallest value counted in the bucket
+     */
+    public double lowerBound(int i) {
+        if (i == 0) {
+            return 0.0;
+        }
+        int exponent = MIN_EXPONENT + i / SUB_BUCKETS;
+        int sub = i % SUB_BUCKETS;
+        return Math.scalb(1.0 + (double) sub / SUB_BUCKETS, exponent);
+    }
+
+    /**
+     * Finds the bucket for a value, from its binary exponent and the top bits of its mantissa.
+     */
+    private int bucketOf(double value) {
+        int exponent = Math.getExponent(value);
+        if (exponent < MIN_EXPONENT) {
+            return 0;
+        }
+        if (exponent > MAX_EXPONENT) {
+            return counts.length - 1;
+        }
+
+        int sub = (int) (Double.doubleToRawLongBits(value) >>> (52 - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - MIN_EXPONENT) * SUB_BUCKETS + sub;
+    }
+
+}
@@ -0,0 +1,138 @@
+package transport;
+
+/**
+ * The parts common to every channel: losing and corrupting packets at random, with the probabilities entered for the
+ * simulation unless the channel options "loss" and "corrupt" override them for a direction, and the network delay
+ * of the original simulator.
+ */
+public abstract class NoisyChannel implements Channel {
+
+    private final NetworkSimulator simulator;   // for the random number generator and the corruption model
+    private final double lossProb;              // the probability that a packet will be lost
+    private final double corruptProb;           // the probability that a packet will be corrupted
+
+    protected NoisyChannel(NetworkSimulator simulator, String direction) {
+        this.simulator = simulator;
+        lossProb = simulator.getChannelOption(direction, "loss", simulator.getLossProb());
+        corruptProb = simulator.getChannelOption(direction, "corrupt", simulator.getCorruptProb());
+    }
+
+    protected NetworkSimulator getSimulator() {
+        return simulator;
+    }
+
+    protected double getLossProb() {
+        return lossProb;
+    }
+
+    /**
+     * Creates the queue of packets in flight on a channel without a bandwidth limit, which otherwise holds any number
+     * of them. That is the original simulator's channel, and it is kept when one flow has the channel to itself. When
+     * the channel is shared - by several flows, or by the data and acknowledgements of duplex hosts - the senders can
+     * together offer more than it carries, and their timers then expire for packets still queued, sending more copies
+     * into a queue which never drains. A shared channel therefore holds at most the "queue" setting of packets in
+     * flight (default 16) and drops the rest like a {@link LinkChannel}; a "queue" of 0 lifts the limit.
+     *
+     * @param direction the direction of the channel, for its settings
+     * @return the queue, or null if the number of packets in flight is not limited
+     */
+    protected DropTailQueue inFlightQueue(String direction) {
+        boolean shared = simulator.getFlows() > 1 || simulator.isDuplex();
+        int queue = (int) simulator.getChannelOption(direction, "queue", shared ? 16 : 0);
+        return queue == 0 ? null : new DropTailQueue(queue);
+    }
+
+    /**
+     * Decides whether a packet sent now finds the channel's queue of packets in flight full.
+     *
+     * @param queue the queue from {@link #inFlightQueue(String)}, or null if there is no limit
+     * @param now the current simulation time
+     * @return true if the packet is dropped
+     */
+    protected static boolean full(DropTailQueue queue, double now) {
+        return queue != null && !queue.hasRoom(now);
+    }
+
+    /**
+     * Records a packet in the channel's queue of packets in flight, until it arrives.
+     *
+     * @param queue the queue from {@link #inFlightQueue(String)}, or null if there is no limit
+     * @param arrivalTime the time the packet arrives
+     */
+    protected void inFlight(DropTailQueue queue, double arrivalTime) {
+        if (queue != null) {
+            simulator.getMetrics().queued(queue.add(arrivalTime));
+        }
+    }
+
+    /**
+     * Decides at random whether a packet is lost, with the given probability.
+     *
+     * @return true if the packet is lost
+     */
+    protected boolean lose(double probability) {
+        return simulator.getRand().nextDouble() < probability;
+    }
+
+    /**
+     * Decides at random whether a packet is corrupted, and if so corrupts it in place as the simulator's "corruption"
+     * option says and marks it as corrupted.
+     *
+     * @param packet the packet, which must be the network's copy
+     */
+    protected void corrupt(Packet packet) {
+        if (simulator.getRand().nextDouble() >= corruptProb) {
+            return;
+        }
+        packet.setCorrupted(true);
+
+        if (simulator.getCorruption().equals("bits")) {
+            // flip two different bits, anywhere in the sequence number, acknowledgment number, window and payload
+            int bits = 96 + 8 * packet.getPayloadLength();
+            int first = simulator.getRand().nextInt(bits);
+            int second = (first + 1 + simulator.getRand().nextInt(bits - 1)) % bits;
+            flipBit(packet, first);
+            flipBit(packet, second);
+        } else {
+            double x = simulator.getRand().nextDouble();
+            if (x < 0.75) {
+                // corrupt the payload - by changing the first character, in place
+                packet.getPayloadBytes()[0] = '=';
+                if (packet.getPayloadLength() < 2) {
+                    packet.setPayloadLength(1);
+                }
+            } else if (x < 0.875) {
+                // corrupt the sequence number
+                packet.setSeqnum(Math.abs(simulator.getRand().nextInt()));
+            } else {
+                // corrupt the acknowledgment number
+                packet.setAcknum(Math.abs(simulator.getRand().nextInt()));
+            }
+        }
+    }
+
+    /**
+     * Adds a random network delay to a time: 1 plus the absolute value of a normal variate with mean 9 and deviation 5.
+     *
+     * @param time the time the delay starts from
+     * @return the time the delay ends
+     */
+    protected double delayFrom(double time) {
+        return time + 1.0 + Math.abs(5.0 * simulator.getRand().nextGaussian() + 9.0);
+    }
+
+    // Flip a bit of a packet: bits 0 to 31 are the sequence number, 32 to 63 the acknowledgment number, 64 to 95 the
+    // window, and the rest the payload
+    private static void flipBit(Packet packet, int bit) {
+        if (bit < 32) {
+            packet.setSeqnum(packet.getSeqnum() ^ (1 << bit));
+        } else if (bit < 64) {
+            packet.setAcknum(packet.getAcknum() ^ (1 << (bit - 32)));
+        } else if (bit < 96) {
+            packet.setWindow(packet.getWindow() ^ (1 << (bit - 64)));
+        } else {
+            packet.getPayloadBytes()[(bit - 96) / 8] ^= 1 << (bit % 8);
+        }
+    }
+
+}
@@ -0,0 +1,33 @@
+package transport;
+
+import java.io.PrintStream;
+
+/**
+ * A tracer which writes each line straight to a print stream, such as {@link System#out}.
+ */
+public class PrintStreamTracer implements Tracer {
+
+    private final PrintStream out;
+    private final TraceLevel level;
+
+    public PrintStreamTracer(PrintStream out, TraceLevel level) {
+        this.out = out;
+        this.level = level;
+    }
+
+    @Override
+    public TraceLevel getLevel() {
+        return level;
+    }
+
+    @Override
+    public void trace(String line) {
+        out.println(line);
+    }
+
+    @Override
+    public void close() {
+        out.flush();
+    }
+
+}
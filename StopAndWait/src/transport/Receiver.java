@@ -12,11 +12,16 @@ public class Receiver extends NetworkHost {
      */
     private int expectedSeq;
 
+    /**
+     * The acknowledgement packet, filled in again for every acknowledgement sent.
+     */
+    private Packet ackPacket;
+
     /**
      * {@inheritDoc}
      */
-    public Receiver(int entityName) {
-        super(entityName);
+    public Receiver(int entityName, NetworkSimulator simulator) {
+        super(entityName, simulator);
     }
 
     /**
@@ -26,6 +31,7 @@ public class Receiver extends NetworkHost {
     @Override
     public void init() {
         expectedSeq = 0;
+        ackPacket = new Packet(0, 0, 0);
     }
 
     /**
@@ -39,23 +45,31 @@ public class Receiver extends NetworkHost {
     public void input(Packet packet) {
         //check if packet is corrupt or not the right one - if so, send ACK with other sequence number to get the
         // expectedSeq packet to be resent
-        if (Checksum.corrupt(packet) || packet.getSeqnum() != expectedSeq) {
-            int ackPrev = (expectedSeq + 1) % 2;
-            Packet prev = new Packet(0, ackPrev, Checksum.compute(0, ackPrev));
-            udtSend(prev);
+        if (getChecksum().corrupt(packet) || packet.getSeqnum() != expectedSeq) {
+            acknowledge((expectedSeq + 1) % 2);
             //continue waiting in this state
             return;
         }
 
         //send data up to the application layer - if control flow reaches here the data is most likely not corrupt
-        deliverData(packet.getPayload());
+        deliverData(packet.getPayloadBytes(), packet.getPayloadLength());
 
         //send ACK back to sender for this packet
-        Packet ackPacket = new Packet(0, expectedSeq, Checksum.compute(0, expectedSeq));
-        udtSend(ackPacket);
+        acknowledge(expectedSeq);
 
         //switch into same state, but now waiting for next sequence number (1 if currently 0, 0 if currently 1)
         expectedSeq = (expectedSeq + 1) % 2;
     }
 
+    /**
+     * Sends an acknowledgement.
+     *
+     * @param ack the sequence number to acknowledge
+     */
+    private void acknowledge(int ack) {
+        ackPacket.setAcknum(ack);
+        ackPacket.setChecksum(getChecksum().compute(0, ack, ackPacket.getWindow()));
+        udtSend(ackPacket);
+    }
+
 }
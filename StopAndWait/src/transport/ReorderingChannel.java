@@ -0,0 +1,46 @@
+package transport;
+
+/**
+ * A channel which reorders and duplicates the packets carried by another channel. With the probability of the option
+ * "reorder", a packet is held back by a random extra delay of up to "jitter" time units (default 20), so that packets
+ * sent after it can overtake it. With the probability of "duplicate", a second copy of a packet arrives up to "jitter"
+ * time units after the first. Both default to 0, and the decorator is only used if one of them is set.
+ * <p>
+ * The event list orders arrivals by time whatever order they were scheduled in, so reordered packets cost no more to
+ * simulate than packets in order.
+ */
+public class ReorderingChannel implements Channel {
+
+    private final Channel channel;              // the channel which decides whether and when packets arrive
+    private final NetworkSimulator simulator;   // for the random number generator and the metrics
+    private final double reorderProb;           // the probability that a packet is held back
+    private final double duplicateProb;         // the probability that a packet arrives twice
+    private final double jitter;                // the largest extra delay of a packet held back or a duplicate
+
+    public ReorderingChannel(Channel channel, NetworkSimulator simulator, String direction) {
+        this.channel = channel;
+        this.simulator = simulator;
+        reorderProb = simulator.getChannelOption(direction, "reorder", 0.0);
+        duplicateProb = simulator.getChannelOption(direction, "duplicate", 0.0);
+        jitter = simulator.getChannelOption(direction, "jitter", 20.0);
+    }
+
+    @Override
+    public double transmit(Packet packet, double now) {
+        double arrivalTime = channel.transmit(packet, now);
+        if (arrivalTime >= 0.0 && simulator.getRand().nextDouble() < reorderProb) {
+            simulator.getMetrics().packetReordered();
+            arrivalTime += jitter * simulator.getRand().nextDouble();
+        }
+        return arrivalTime;
+    }
+
+    @Override
+    public double duplicate(double arrivalTime) {
+        if (simulator.getRand().nextDouble() < duplicateProb) {
+            return arrivalTime + jitter * simulator.getRand().nextDouble();
+        }
+        return LOST;
+    }
+
+}
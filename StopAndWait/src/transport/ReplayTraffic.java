@@ -0,0 +1,126 @@
+package transport;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * An application which replays the message arrivals in a file, given with the option "traffic.file", so that a run can
+ * be driven by recorded traffic. The file is either a binary event trace written by {@link TraceRecorder}, whose
+ * FROMAPP events at the host's entity are replayed, or a text file with the arrival time of a message on each line,
+ * optionally followed by its length. Blank lines and lines starting with '#' are skipped.
+ * <p>
+ * Messages whose length is not in the file get one as generated traffic does. An arrival which is already past, because
+ * the application was suspended, happens at once. The source ends with the file.
+ */
+public class ReplayTraffic extends GeneratedTraffic {
+
+    private double[] times;     // the arrival times read from the file
+    private int[] sizes;        // the length of each message, or 0 if the file did not give it
+    private int count;          // the number of arrivals read
+    private int next;           // the index of the next arrival to replay
+
+    public ReplayTraffic(NetworkSimulator simulator, int entity) {
+        super(simulator);
+        String file = simulator.getOption("traffic.file", null);
+        if (file == null) {
+            throw new IllegalArgumentException("trace traffic needs the option traffic.file");
+        }
+
+        times = new double[64];
+        sizes = new int[64];
+        Path path = Paths.get(file);
+        try {
+            if (isEventTrace(path)) {
+                readEventTrace(path, entity);
+            } else {
+                readText(path);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("cannot read traffic trace " + file, ex);
+        }
+        next = 0;
+    }
+
+    @Override
+    public double nextArrival(double now) {
+        if (next == count) {
+            return END;
+        }
+        return Math.max(now, times[next++]);
+    }
+
+    @Override
+    public int nextSize() {
+        int size = next > 0 ? sizes[next - 1] : 0;
+        return size > 0 ? size : super.nextSize();
+    }
+
+    /**
+     * @return the number of message arrivals in the file
+     */
+    public int getCount() {
+        return count;
+    }
+
+    private static boolean isEventTrace(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return new DataInputStream(in).readInt() == TraceRecorder.MAGIC;
+        } catch (EOFException ex) {
+            return false;
+        }
+    }
+
+    private void readEventTrace(Path path, int entity) throws IOException {
+        try (TraceReader in = new TraceReader(path)) {
+            while (in.next()) {
+                if (in.getType() == EventType.FROMAPP && in.getEntity() == entity) {
+                    add(in.getTime(), 0);
+                }
+            }
+        }
+    }
+
+    private void readText(Path path) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(path, StandardCharsets.ISO_8859_1)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                String[] fields = line.split("[\\s,]+");
+                try {
+                    int size = fields.length > 1 ? Integer.parseInt(fields[1]) : 0;
+                    if (size < 0 || size > NetworkSimulator.MAXDATASIZE) {
+                        throw new IllegalArgumentException("message longer than " + NetworkSimulator.MAXDATASIZE
+                                + " characters: " + line);
+                    }
+                    add(Double.parseDouble(fields[0]), size);
+                } catch (NumberFormatException ex) {
+                    throw new IllegalArgumentException("expected time [length]: " + line, ex);
+                }
+            }
+        }
+    }
+
+    private void add(double time, int size) {
+        if (count == times.length) {
+            times = Arrays.copyOf(times, count * 2);
+            sizes = Arrays.copyOf(sizes, count * 2);
+        }
+        times[count] = time;
+        sizes[count] = size;
+        count++;
+    }
+
+}
@@ -1,8 +1,5 @@
 package transport;
 
-import java.util.logging.Level;
-import java.util.logging.Logger;
-
 /**
  * A network host which sends data to a receiver using a reliable stop-and-wait transfer protocol.
  *
@@ -11,10 +8,18 @@ import java.util.logging.Logger;
 public class Sender extends NetworkHost {
 
     /**
-     * The maximum time to wait for a response after sending a packet.
+     * The maximum time to wait for a response after sending a packet. With the simulator option "rto" set to
+     * "adaptive", this is only the timeout used until the first round trip time has been measured.
      */
     private static final int TIMER_LENGTH = 50;
 
+    /**
+     * The largest the fixed timer is backed off to, as a multiple of its length. It is never backed off: with only one
+     * packet in transit, a copy sent again never queues behind the one before it, so a longer timer would only slow
+     * down the recovery from each loss.
+     */
+    private static final int MAX_BACKOFF = 1;
+
     /**
      * The current state of this finite-state machine. The two possible states are waiting for a message from the
      * application layer, and waiting for an acknowledgement packet from the receiver host.
@@ -28,50 +33,88 @@ public class Sender extends NetworkHost {
 
     /**
      * The packet currently being sent through the network. Stored in a field so that upon timeout the packet can be
-     * re-sent to the receiver.
+     * re-sent to the receiver, and filled in again for each message.
      */
     private Packet sendPacket;
 
+    /**
+     * The time at which the current packet was last sent.
+     */
+    private double sendTime;
+
+    /**
+     * Whether the current packet has been sent more than once, in which case its round trip time is not measured.
+     */
+    private boolean retransmitted;
+
+    /**
+     * The length of the timer, fixed or estimated from round trip times depending on the "rto" option.
+     */
+    private RetransmissionTimeout rto;
+
+    /**
+     * Whether a message from the application layer which arrives while waiting for an acknowledgement is refused, to be
+     * offered again once the acknowledgement has arrived, rather than dropped.
+     */
+    private boolean block;
+
     /**
      * {@inheritDoc}
      */
-    public Sender(int entityName) {
-        super(entityName);
+    public Sender(int entityName, NetworkSimulator simulator) {
+        super(entityName, simulator);
     }
 
     /**
      * Callback function which initialises the state of the sender. The sender initially waits for a message from the
-     * application layer. The initial sequence number is zero.
+     * application layer. The initial sequence number is zero. What happens to messages from the application layer
+     * while waiting for an acknowledgement is read from the "sendbuffer" option: "drop" (the default) or "block".
      */
     @Override
     public void init() {
         state = SenderState.WAIT_MSG;
         seq = 0;
-        sendPacket = null;
+        sendPacket = new Packet(0, 0, 0);
+        rto = RetransmissionTimeout.create(getSimulator().getOption("rto", "fixed"), TIMER_LENGTH, MAX_BACKOFF);
+
+        String policy = getSimulator().getOption("sendbuffer", "drop");
+        if (!policy.equals("drop") && !policy.equals("block")) {
+            throw new IllegalArgumentException("unknown send buffer policy: " + policy);
+        }
+        block = policy.equals("block");
     }
 
     /**
      * Handles reliable transport of an application message through the network to a receiving host. Note: this
-     * implementation ignores application messages while awaiting acknowledgement from the receiver for the last
-     * packet sent.
+     * implementation drops application messages while awaiting acknowledgement from the receiver for the last
+     * packet sent, or refuses them if the "sendbuffer" option is "block".
      *
      * @param message the message to send
      */
     @Override
     public void output(Message message) {
         if (state != SenderState.WAIT_MSG) {
-            //if we're currently in the middle of sending another packet, warn and drop the message
-            Logger.getLogger(Sender.class.getName()).log(Level.WARNING, "dropped message: {0}", message);
+            //if we're currently in the middle of sending another packet, hold back the application or warn and drop
+            // the message
+            if (block) {
+                refuseMessage(message);
+            } else {
+                dropMessage(message);
+            }
             return;
         }
 
-        //compute checksum and create new packet
-        int check = Checksum.compute(seq, 0, message.getData());
-        sendPacket = new Packet(seq, 0, check, message.getData());
+        //compute checksum and fill in the packet
+        sendPacket.setSeqnum(seq);
+        sendPacket.setPayload(message.getBytes(), message.getLength());
+        sendPacket.setChecksum(getChecksum().compute(seq, 0, sendPacket.getWindow(), message.getBytes(),
+                message.getLength()));
 
         //send packet unreliably, and also start the timer now
         udtSend(sendPacket);
-        startTimer(TIMER_LENGTH);
+        sendTime = getSimulator().getTime();
+        retransmitted = false;
+        startTimer(rto.get());
 
         //transition to the next state, which waits until acknowledgement is received from the client or until the
         // above timer expires
@@ -93,16 +136,28 @@ public class Sender extends NetworkHost {
         }
 
         //check if received packet is 'wrong' - i.e. is corrupt or is an acknowledgement of the wrong packet
-        if (Checksum.corrupt(packet) || packet.getAcknum() != seq) {
+        if (getChecksum().corrupt(packet)) {
             //if so, ignore and stay in same state - wait for another packet or for the timer to expire
             return;
         }
+        if (packet.getAcknum() != seq) {
+            getSimulator().getMetrics().duplicateAck();
+            return;
+        }
 
         //received a valid ACK - stop the timer and transition to the application message waiting state (with an
         // alternating sequence number 1 -> 0, 0 -> 1)
         stopTimer();
+        if (retransmitted) {
+            rto.retransmissionAcked(getSimulator().getTime() - sendTime);
+        } else {
+            rto.sample(getSimulator().getTime() - sendTime);
+        }
         state = SenderState.WAIT_MSG;
         seq = (seq + 1) % 2;
+
+        //ready for another message, so offer again any that was refused
+        getSimulator().resumeApplication();
     }
 
     /**
@@ -116,9 +171,14 @@ public class Sender extends NetworkHost {
             return;
         }
 
-        //resend the packet and restart the timer
+        //resend the packet and restart the timer, backing off first
+        getSimulator().getMetrics().stalled(getSimulator().getTime() - sendTime);
         udtSend(sendPacket);
-        startTimer(TIMER_LENGTH);
+        sendTime = getSimulator().getTime();
+        retransmitted = true;
+        getSimulator().getMetrics().retransmission();
+        rto.backoff();
+        startTimer(rto.get());
     }
 
     /**
@@ -0,0 +1,242 @@
+package transport;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a binary event trace written by {@link TraceRecorder}. The reader works like a cursor: each call to
+ * {@link #next()} moves on to the next event, whose fields are then available from the getters. Payload records are
+ * handled internally.
+ * <p>
+ * Run as a program, it replays a trace as text, optionally filtered by event type, entity and time:
+ * <pre>
+ *     java transport.TraceReader trace.bin [type=FROMNETWORK] [entity=67890] [from=100.0] [to=200.0]
+ * </pre>
+ */
+public class TraceReader implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private static final EventType[] TYPES = EventType.values();
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final List<String> payloads;
+
+    private double time;
+    private EventType type;
+    private int entity;
+    private boolean hasPacket;
+    private int seqnum;
+    private int acknum;
+    private int checksum;
+    private int payload;
+
+    /**
+     * Opens a trace file and checks its header.
+     *
+     * @param file the trace file
+     * @throws IOException if the file cannot be read or is not a trace
+     */
+    public TraceReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        buffer.flip();
+        payloads = new ArrayList<>();
+
+        if (!fill(8) || buffer.getInt() != TraceRecorder.MAGIC) {
+            throw new IOException(file + " is not an event trace");
+        }
+        int version = buffer.getInt();
+        if (version != TraceRecorder.VERSION) {
+            throw new IOException("unsupported trace version " + version);
+        }
+    }
+
+    /**
+     * Moves on to the next event in the trace.
+     *
+     * @return true if there is another event, false at the end of the trace
+     * @throws IOException if the trace cannot be read or is truncated
+     */
+    public boolean next() throws IOException {
+        while (fill(1)) {
+            byte tag = buffer.get();
+            switch (tag) {
+                case TraceRecorder.EVENT:
+                    require(TraceRecorder.EVENT_SIZE - 1);
+                    time = buffer.getDouble();
+                    type = TYPES[buffer.get()];
+                    entity = buffer.getInt();
+                    hasPacket = buffer.get() != 0;
+                    seqnum = buffer.getInt();
+                    acknum = buffer.getInt();
+                    checksum = buffer.getInt();
+                    payload = buffer.getInt();
+                    return true;
+                case TraceRecorder.PAYLOAD:
+                    require(8);
+                    int id = buffer.getInt();
+                    byte[] bytes = new byte[buffer.getInt()];
+                    require(bytes.length);
+                    buffer.get(bytes);
+                    if (id != payloads.size()) {
+                        throw new IOException("payload " + id + " out of order");
+                    }
+                    payloads.add(new String(bytes, StandardCharsets.UTF_8));
+                    break;
+                default:
+                    throw new IOException("unknown record tag " + tag);
+            }
+        }
+        return false;
+    }
+
+    public double getTime() {
+        return time;
+    }
+
+    public EventType getType() {
+        return type;
+    }
+
+    public int getEntity() {
+        return entity;
+    }
+
+    public boolean hasPacket() {
+        return hasPacket;
+    }
+
+    public int getSeqnum() {
+        return seqnum;
+    }
+
+    public int getAcknum() {
+        return acknum;
+    }
+
+    public int getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * @return the payload of the current event's packet, or null if there is no packet or no payload
+     */
+    public String getPayload() {
+        return payload == TraceRecorder.NO_PAYLOAD ? null : payloads.get(payload);
+    }
+
+    /**
+     * Rebuilds the current event as an {@link Event}, for code which works with the simulator's own classes.
+     *
+     * @return a new event equal to the recorded one
+     */
+    public Event toEvent() {
+        Packet p = hasPacket ? new Packet(seqnum, acknum, checksum, getPayload()) : null;
+        return new Event(time, type, entity, p);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Reads from the file until at least the given number of bytes are buffered, or the file ends.
+     *
+     * @return true if the bytes are available, false if the file ended first
+     */
+    private boolean fill(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+
+        buffer.compact();
+        try {
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    return false;
+                }
+            }
+        } finally {
+            buffer.flip();
+        }
+        return true;
+    }
+
+    /**
+     * Like {@link #fill(int)}, but a record cut short by the end of the file is an error.
+     */
+    private void require(int bytes) throws IOException {
+        if (bytes > buffer.capacity()) {
+            throw new IOException("record of " + bytes + " bytes is too large");
+        }
+        if (!fill(bytes)) {
+            throw new EOFException("trace ends part way through a record");
+        }
+    }
+
+    public static void main(String[] argv) throws IOException {
+        if (argv.length < 1) {
+            System.err.println("usage: TraceReader <trace file> [type=<event type>] [entity=<entity>] [from=<time>] [to=<time>]");
+            System.exit(-1);
+        }
+
+        EventType onlyType = null;
+        Integer onlyEntity = null;
+        double from = Double.NEGATIVE_INFINITY;
+        double to = Double.POSITIVE_INFINITY;
+
+        for (int i = 1; i < argv.length; i++) {
+            String[] filter = argv[i].split("=", 2);
+            if (filter.length != 2) {
+                System.err.println("expected name=value: " + argv[i]);
+                System.exit(-1);
+            }
+            switch (filter[0]) {
+                case "type":
+                    onlyType = EventType.valueOf(filter[1]);
+                    break;
+                case "entity":
+                    onlyEntity = Integer.valueOf(filter[1]);
+                    break;
+                case "from":
+                    from = Double.parseDouble(filter[1]);
+                    break;
+                case "to":
+                    to = Double.parseDouble(filter[1]);
+                    break;
+                default:
+                    System.err.println("unknown filter: " + filter[0]);
+                    System.exit(-1);
+            }
+        }
+
+        try (TraceReader reader = new TraceReader(Paths.get(argv[0]))) {
+            while (reader.next()) {
+                if ((onlyType != null && reader.getType() != onlyType)
+                        || (onlyEntity != null && reader.getEntity() != onlyEntity)
+                        || reader.getTime() < from || reader.getTime() > to) {
+                    continue;
+                }
+
+                System.out.print("EVENT time: " + reader.getTime() + "  type: " + reader.getType() + "  entity: " + reader.getEntity());
+                if (reader.hasPacket()) {
+                    System.out.print("  seqnum: " + reader.getSeqnum() + "  acknum: " + reader.getAcknum()
+                            + "  checksum: " + reader.getChecksum() + "  payload: " + reader.getPayload());
+                }
+                System.out.println();
+            }
+        }
+    }
+
+}
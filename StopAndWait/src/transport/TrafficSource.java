@@ -0,0 +1,59 @@
+package transport;
+
+/**
+ * The application at a sending host, which decides when each message is passed to the host and how long it is. The
+ * source is chosen with the simulator option "traffic" and configured with options "traffic.&lt;name&gt;". Each
+ * sending host has a source of its own, all drawing on the simulator's random number generator.
+ */
+public interface TrafficSource {
+
+    /**
+     * The result of {@link #nextArrival(double)} once the source has no more messages.
+     */
+    double END = Double.POSITIVE_INFINITY;
+
+    /**
+     * Decides when the next message arrives from the application.
+     *
+     * @param now the current simulation time, which is when the last message arrived unless the application was
+     *            suspended since
+     * @return the time the next message arrives, no earlier than now, or {@link #END} if there are no more
+     */
+    double nextArrival(double now);
+
+    /**
+     * Decides the length of the message which is arriving now.
+     *
+     * @return the number of characters in the message, from 1 to {@link NetworkSimulator#MAXDATASIZE}
+     */
+    int nextSize();
+
+    /**
+     * Creates the application traffic of one sending host, reading its type and settings from the simulator options.
+     *
+     * @param simulator the simulation the source belongs to
+     * @param entity the sending host, whose arrivals are replayed from an event trace
+     * @return a new source, of type "uniform" (the default) for a {@link UniformTraffic}, "poisson" for a
+     *         {@link PoissonTraffic}, "cbr" for a {@link ConstantTraffic}, "onoff" for an {@link OnOffTraffic} or
+     *         "trace" for a {@link ReplayTraffic}
+     * @throws IllegalArgumentException if the type is not recognised
+     */
+    static TrafficSource create(NetworkSimulator simulator, int entity) {
+        String type = simulator.getOption("traffic", "uniform");
+        switch (type) {
+            case "uniform":
+                return new UniformTraffic(simulator);
+            case "poisson":
+                return new PoissonTraffic(simulator);
+            case "cbr":
+                return new ConstantTraffic(simulator);
+            case "onoff":
+                return new OnOffTraffic(simulator);
+            case "trace":
+                return new ReplayTraffic(simulator, entity);
+            default:
+                throw new IllegalArgumentException("unknown traffic type: " + type);
+        }
+    }
+
+}
@@ -0,0 +1,20 @@
+package transport;
+
+/**
+ * The original application of the simulator: the time between messages is spread evenly from half to one and a half
+ * times the average.
+ */
+public class UniformTraffic extends GeneratedTraffic {
+
+    public UniformTraffic(NetworkSimulator simulator) {
+        super(simulator);
+    }
+
+    @Override
+    public double nextArrival(double now) {
+        // arrival time 'x' is uniform on [0.5 * avgMessageDelay, 1.5 * avgMessageDelay] having mean of avgMessageDelay
+        double x = 0.5 * getAvgMessageDelay() + getAvgMessageDelay() * getRand().nextDouble();
+        return now + x;
+    }
+
+}